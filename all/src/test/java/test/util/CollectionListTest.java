@@ -2,9 +2,20 @@ package test.util;
 
 import org.junit.jupiter.api.Test;
 import util.collection.CollectionList;
+import util.collection.CollectionSet;
+import util.collection.ElementCodec;
+import util.collection.FileBasedCollectionList;
 import util.collection.ICollectionList;
+import util.collection.Parallelism;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CollectionListTest {
     @SuppressWarnings("StringBufferReplaceableByString")
@@ -122,4 +133,103 @@ public class CollectionListTest {
         assert CollectionList.of(1, 2, 3, 4, 5).limit(3).size() == 2;
         assert CollectionList.of(1, 2, 3, 4, 5).max(3).size() == 3;
     }
+
+    @Test
+    public void view() {
+        CollectionList<String> list = CollectionList.of("Cow", "Cave", "Cop", "Cape", "Alpha", "Artifact");
+        ICollectionList<Integer> lengths = list.view().filter(s -> s.startsWith("C")).map(String::length).toList();
+        assert lengths.size() == 4 && lengths.join().equals("3,4,3,4") : getAssertionErrorMessage(lengths);
+        assert list.view().limit(2).max(2).join().equals("Cop,Cape") : list.view().limit(2).max(2).join();
+        assert list.view().slice(1, 3).join().equals(list.slice(1, 3).join());
+        assert list.view().arrayFlatMap(s -> s.split("")).filter(s -> s.equals("C")).count() == 4;
+        assert list.view().map(s -> s.charAt(0)).unique().join().equals("C,A");
+    }
+
+    @Test
+    public void viewShortCircuit() {
+        CollectionList<Integer> list = new CollectionList<>();
+        for (int i = 0; i < 1000; i++) list.add(i);
+        AtomicInteger calls = new AtomicInteger();
+        Integer first = list.view().map(i -> {
+            calls.incrementAndGet();
+            return i * 2;
+        }).filter(i -> i > 10).first();
+        assert first != null && first == 12 && calls.get() == 7 : calls.get();
+        calls.set(0);
+        assert list.view().filter(i -> calls.incrementAndGet() > 0).anyMatch(i -> i == 3) && calls.get() == 4 : calls.get();
+        calls.set(0);
+        assert list.view().filter(i -> calls.incrementAndGet() > 0).max(5).toList().size() == 5 && calls.get() == 5 : calls.get();
+    }
+
+    @Test
+    public void noCopy() {
+        AtomicInteger copies = new AtomicInteger();
+        CollectionList<Integer> list = new CollectionList<Integer>() {
+            @Override
+            public Object[] toArray() {
+                copies.incrementAndGet();
+                return super.toArray();
+            }
+        };
+        for (int i = 0; i < 100_000; i++) list.add(i);
+        assert list.first() == 0 && list.last() == 99_999 : getAssertionErrorMessage(list);
+        ICollectionList<ICollectionList<Integer>> split = list.split(3);
+        assert split.size() == 33_334 && split.last().size() == 1 && split.last().first() == 99_999 : split.size();
+        assert copies.get() == 0 : copies.get();
+    }
+
+    @Test
+    public void listIteratorWritesThrough() {
+        FileBasedCollectionList<Integer> list = FileBasedCollectionList.<Integer>builder().setChunkSize(4).setCodec(ElementCodec.INTEGER).build();
+        try {
+            for (int i = 0; i < 10; i++) list.add(i);
+            list.flush();
+            long written = list.getCompressionStats().getRawBytesWritten();
+            ListIterator<Integer> iterator = list.listIterator();
+            while (iterator.hasNext()) iterator.set(iterator.next() * 10);
+            assert list.first() == 0 && list.get(5) == 50 && list.last() == 90 : getAssertionErrorMessage(list);
+            list.flush();
+            // each chunk is rewritten once, not once per element
+            assert list.getCompressionStats().getRawBytesWritten() == 2 * written : list.getCompressionStats();
+            assert list.get(5) == 50 && list.contains(90) : getAssertionErrorMessage(list);
+        } finally {
+            list.close();
+        }
+    }
+
+    @Test
+    public void parallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Parallelism parallelism = Parallelism.of(pool, 100);
+            CollectionList<Integer> list = new CollectionList<>();
+            for (int i = 0; i < 10_000; i++) list.add(i);
+            ICollectionList<Integer> mapped = list.parallelMap(parallelism, (v, i) -> v + i);
+            assert mapped.size() == 10_000 && mapped.get(1234) == 2468 && mapped.last() == 19_998 : mapped.size();
+            ICollectionList<Integer> filtered = list.parallelFilter(parallelism, v -> v % 3 == 0);
+            assert filtered.equals(list.filter(v -> v % 3 == 0)) : getAssertionErrorMessage(filtered);
+            ICollectionList<Integer> flat = list.parallelFlatMap(parallelism, v -> v < 3 ? Arrays.asList(v, v) : null);
+            assert flat.join().equals("0,0,1,1,2,2") : getAssertionErrorMessage(flat);
+            String joined = list.max(300).parallelReduce(parallelism, "", (s, v) -> s + v + ",", String::concat);
+            assert joined.equals(list.max(300).join() + ",") : joined;
+            ICollectionList<Integer> shuffled = list.shuffle();
+            assert shuffled.parallelSorted(parallelism, Comparator.naturalOrder()).equals(list) : getAssertionErrorMessage(shuffled);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void batches() {
+        CollectionList<Integer> list = new CollectionList<>();
+        for (int i = 0; i < 10; i++) list.add(i);
+        assert Arrays.asList(4, 4, 2).equals(list.batches(4).map(List::size).toList()) : list.batches(4).toList();
+        assert list.batches(4).last().equals(Arrays.asList(8, 9)) : list.batches(4).last();
+        assert Arrays.asList(Arrays.asList(0, 1, 2, 3), Arrays.asList(3, 4, 5, 6), Arrays.asList(6, 7, 8, 9)).equals(list.windows(4, 3).toList());
+        assert list.windows(11, 1).count() == 0 && list.windows(2, 5).count() == 2;
+        assert list.batchesUntil(3, 1, TimeUnit.MINUTES).count() == 4;
+        assert list.batchesUntil(100, 1, TimeUnit.NANOSECONDS).flatMap(l -> l).count() == 10;
+        CollectionSet<Integer> set = new CollectionSet<>(list);
+        assert set.batches(3).count() == 4 && Arrays.asList(5, 5).equals(set.windows(5, 5).map(List::size).toList());
+    }
 }
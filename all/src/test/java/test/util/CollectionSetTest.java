@@ -5,6 +5,9 @@ import util.collection.CollectionList;
 import util.collection.CollectionSet;
 import util.collection.ICollectionList;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Objects;
 
 public class CollectionSetTest {
@@ -65,4 +68,14 @@ public class CollectionSetTest {
     public void last() {
         assert Objects.equals(new CollectionList<>("a", "b", "c").last(), "c");
     }
+
+    @Test
+    public void listIterator() {
+        CollectionSet<String> set = new CollectionSet<>("A", "B", "C");
+        List<String> values = new ArrayList<>();
+        ListIterator<String> iterator = set.listIterator();
+        while (iterator.hasNext()) values.add(iterator.next());
+        assert values.size() == 3 && values.containsAll(set) : values;
+        assert set.listIterator(3).previous() != null && !set.listIterator(3).hasNext() : getAssertionErrorMessage(set);
+    }
 }
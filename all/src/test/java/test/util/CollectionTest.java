@@ -0,0 +1,94 @@
+package test.util;
+
+import org.junit.jupiter.api.Test;
+import util.collection.Collection;
+import util.collection.LinkedCollection;
+import util.collection.SortedCollection;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+public class CollectionTest {
+    @Test
+    public void indexBy() {
+        Collection<String, String> map = new Collection<>();
+        map.put("alice", "red");
+        map.put("bob", "blue");
+        map.indexBy("team", String::toUpperCase);
+        map.put("carol", "red");
+        Set<String> red = map.lookup("team", "RED");
+        assert map.lookup("team", "RED").equals(new HashSet<>(Arrays.asList("alice", "carol"))) : map.lookup("team", "RED");
+        map.put("alice", "blue");
+        map.remove("carol");
+        assert map.lookup("team", "RED").isEmpty() : map.lookup("team", "RED");
+        assert red.size() == 2 : "Expected the snapshot not to change, but got " + red;
+        assert map.lookup("team", "BLUE").size() == 2 && map.lookupValues("team", "BLUE").join().equals("blue,blue");
+        map.merge("bob", "green", (a, b) -> b);
+        map.computeIfAbsent("dave", k -> "green");
+        assert map.lookup("team", "GREEN").equals(new HashSet<>(Arrays.asList("bob", "dave"))) : map.lookup("team", "GREEN");
+    }
+
+    @Test
+    public void indexByViews() {
+        Collection<Integer, Integer> map = new Collection<>();
+        for (int i = 0; i < 10; i++) map.put(i, i % 3);
+        map.indexBy("mod", v -> v);
+        for (Iterator<Integer> iterator = map.keySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next() < 3) iterator.remove();
+        }
+        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            if (entry.getKey() == 9) entry.setValue(1);
+        }
+        map.values().removeIf(v -> v == 2);
+        assert map.lookup("mod", 0).equals(new HashSet<>(Arrays.asList(3, 6))) : map.lookup("mod", 0);
+        assert map.lookup("mod", 1).equals(new HashSet<>(Arrays.asList(4, 7, 9))) : map.lookup("mod", 1);
+        assert map.lookup("mod", 2).isEmpty() : map.lookup("mod", 2);
+        Collection<Integer, Integer> clone = map.clone();
+        clone.remove(4);
+        assert clone.lookup("mod", 1).size() == 2 && map.lookup("mod", 1).size() == 3;
+        assert map.dropIndex("mod") && !map.hasIndex("mod");
+    }
+
+    @Test
+    public void findEntry() {
+        Collection<String, Integer> map = new Collection<>();
+        map.put("a", 1);
+        map.put("bb", 2);
+        assert map.findEntry(k -> k.length() == 2).getValue() == 2;
+        assert map.find("a") == 1 && map.find(k -> k.startsWith("c")) == null;
+    }
+
+    @Test
+    public void linkedCollection() {
+        LinkedCollection<String, Integer> map = new LinkedCollection<>();
+        assert map.first() == null && map.lastKey() == null && map.pollFirst() == null;
+        map.put("c", 3);
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 30);
+        assert map.firstKey().equals("c") && map.first() == 30 && map.lastKey().equals("b") && map.last() == 2;
+        assert map.keysList().join().equals("c,a,b") : map;
+        assert map.pollLast() == 2 && map.pollFirst() == 30 && map.size() == 1 && map.firstKey().equals("a") : map;
+        map.put("d", 4);
+        map.keySet().removeIf(k -> k.equals("a"));
+        assert map.firstKey().equals("d") && map.lastKey().equals("d") && map.clone().equals(map) : map;
+        assert map.copy().equals(map) && map.copy().firstKey().equals("d") : map;
+    }
+
+    @Test
+    public void sortedCollection() {
+        SortedCollection<Long, String> map = new SortedCollection<>(Comparator.reverseOrder());
+        assert map.firstKey() == null && map.last() == null;
+        for (long i = 0; i < 10; i++) map.put(i * 10, "v" + i);
+        assert map.firstKey() == 90 && map.first().equals("v9") && map.lastKey() == 0 : map;
+        assert map.range(50L, 20L).join().equals("v5,v4,v3") : map.range(50L, 20L);
+        assert map.headMap(70L).size() == 2 : map.headMap(70L);
+        assert map.pollFirst().equals("v9") && map.pollLast().equals("v0") && map.size() == 8 : map;
+        assert map.clone().equals(map) && map.copy().comparator() == map.comparator();
+        assert map.copy().firstKey() == 80 : map.copy();
+    }
+}
@@ -0,0 +1,47 @@
+package test.util;
+
+import org.junit.jupiter.api.Test;
+import util.collection.Collection;
+import util.collection.ConcurrentCollection;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConcurrentCollectionTest {
+    @Test
+    public void getOrAdd() throws InterruptedException {
+        ConcurrentCollection<Integer, LongAdder> map = new ConcurrentCollection<>();
+        AtomicInteger created = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    map.getOrAdd(i % 100, () -> {
+                        created.incrementAndGet();
+                        return new LongAdder();
+                    }).increment();
+                }
+            });
+        }
+        executor.shutdown();
+        assert executor.awaitTermination(1, TimeUnit.MINUTES);
+        assert map.size() == 100 && created.get() == 100 : created.get();
+        assert map.valuesList().stream().allMatch(adder -> adder.sum() == 800) : map;
+    }
+
+    @Test
+    public void filter() {
+        ConcurrentCollection<String, Integer> map = new ConcurrentCollection<>();
+        for (int i = 0; i < 10; i++) map.put("k" + i, i);
+        Collection<String, Integer> filtered = map.filter(v -> v % 2 == 0);
+        assert filtered.size() == 5 && filtered.get("k4") == 4 && !filtered.containsKey("k5") : filtered;
+        assert map.filterKeys(k -> k.equals("k3")).first() == 3;
+        assert map.mapValues((k, v) -> v * 10).get("k7") == 70;
+        assert map.find(k -> k.endsWith("9")) == 9;
+        assert map.addIfAbsent("k10", 10) && !map.addIfAbsent("k10", 11) && map.get("k10") == 10;
+        assert map.clone().equals(map) && map.keysList().size() == 11;
+    }
+}
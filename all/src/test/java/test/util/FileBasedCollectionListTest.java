@@ -2,10 +2,24 @@ package test.util;
 
 import org.junit.jupiter.api.Test;
 import util.collection.CollectionList;
+import util.collection.Compression;
+import util.collection.ElementCodec;
 import util.collection.ICollectionList;
 import util.collection.FileBasedCollectionList;
+import util.collection.Parallelism;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FileBasedCollectionListTest {
     @SuppressWarnings("StringBufferReplaceableByString")
@@ -53,6 +67,55 @@ public class FileBasedCollectionListTest {
         assert list1.equals(list2) && list2.equals(list1);
     }
 
+    @Test
+    public void batches() {
+        FileBasedCollectionList<Integer> list = new FileBasedCollectionList<>(100);
+        for (int i = 0; i < 1050; i++) list.add(i);
+        list.remove(0);
+        List<Integer> sizes = new ArrayList<>();
+        int sum = 0;
+        for (List<Integer> batch : list.batches(300)) {
+            sizes.add(batch.size());
+            for (int i : batch) sum += i;
+        }
+        assert sizes.equals(Arrays.asList(300, 300, 300, 149)) && sum == 1049 * 1050 / 2 : sizes;
+        List<List<Integer>> batches = list.batches(500).toList();
+        assert batches.size() == 3 && batches.get(0).get(0) == 1 && batches.get(2).size() == 49 : batches.size();
+        assert list.batches(10).first().get(9) == 10;
+        try (FileBasedCollectionList.BatchIterator<Integer> it = list.batchIterator(1000)) {
+            List<Integer> batch = it.next();
+            assert batch.get(0) == 1;
+            assert it.next() == batch && batch.size() == 49 && !it.hasNext() : "Expected the batch list to be reused";
+        }
+        list.close();
+    }
+
+    @Test
+    public void reverseAndShuffle() {
+        FileBasedCollectionList<Integer> list = new FileBasedCollectionList<>(10);
+        for (int i = 0; i < 95; i++) list.add(i);
+        list.remove(0);
+        FileBasedCollectionList<Integer> reversed = list.reverse();
+        assert reversed.size() == 94 && reversed.first() == 94 && reversed.get(10) == 84 && reversed.last() == 1 : getAssertionErrorMessage(reversed);
+        FileBasedCollectionList<Integer> shuffled = list.shuffle();
+        assert shuffled.size() == 94 && shuffled.containsAll(list) : getAssertionErrorMessage(shuffled);
+        assert list.first() == 1 && list.last() == 94 : getAssertionErrorMessage(list);
+        reversed.close();
+        shuffled.close();
+        list.close();
+        // more elements than the sort bucket, so the elements are scattered to the temporary lists
+        list = FileBasedCollectionList.<Integer>builder().setChunkSize(1000).setCodec(ElementCodec.INTEGER).build();
+        for (int i = 0; i < 150_000; i++) list.add(i);
+        shuffled = list.shuffle();
+        int moved = 0;
+        for (int i = 0; i < 1000; i++) if (shuffled.get(i) != i) moved++;
+        assert shuffled.size() == 150_000 && moved > 900 : moved;
+        shuffled.sort(Comparator.naturalOrder());
+        assert shuffled.first() == 0 && shuffled.get(76_543) == 76_543 && shuffled.last() == 149_999 : shuffled.size();
+        shuffled.close();
+        list.close();
+    }
+
     @Test
     public void unique() {
         FileBasedCollectionList<String> list = new FileBasedCollectionList<>("u", "n", "i", "q", "u", "e");
@@ -68,4 +131,387 @@ public class FileBasedCollectionListTest {
     public void last() {
         assert Objects.equals(new CollectionList<>("a", "b", "c").last(), "c");
     }
+
+    @Test
+    public void get() {
+        FileBasedCollectionList<Integer> list = new FileBasedCollectionList<>(10);
+        for (int i = 0; i < 1000; i++) list.add(i);
+        assert list.get(0) == 0 && list.get(555) == 555 && list.get(999) == 999 : getAssertionErrorMessage(list);
+        list.add(1000);
+        assert list.get(1000) == 1000 : getAssertionErrorMessage(list);
+    }
+
+    @Test
+    public void set() {
+        FileBasedCollectionList<String> list = new FileBasedCollectionList<>(2);
+        list.addAll(Arrays.asList("a", "b", "c", "d", "e"));
+        assert list.set(1, "B").equals("b") : getAssertionErrorMessage(list);
+        assert list.set(4, "E").equals("e") : getAssertionErrorMessage(list);
+        assert list.join("").equals("aBcdE") : getAssertionErrorMessage(list);
+    }
+
+    @Test
+    public void indexOf() {
+        FileBasedCollectionList<String> list = new FileBasedCollectionList<>(2);
+        list.addAll(Arrays.asList("a", "b", "c", "b", "a"));
+        assert list.indexOf("b") == 1 && list.lastIndexOf("b") == 3 : getAssertionErrorMessage(list);
+        assert list.indexOf("z") == -1 && list.lastIndexOf("z") == -1 : getAssertionErrorMessage(list);
+    }
+
+    @Test
+    public void memoryMapped() {
+        FileBasedCollectionList<Integer> list = FileBasedCollectionList.<Integer>builder()
+                .setChunkSize(10)
+                .setStoreType(FileBasedCollectionList.StoreType.MEMORY_MAPPED)
+                .build();
+        for (int i = 0; i < 1000; i++) list.add(i);
+        assert list.reduce(ICollectionList.Reducer.SUM_INTEGER) == 499500 : getAssertionErrorMessage(list);
+        assert list.get(123) == 123 : getAssertionErrorMessage(list);
+        assert list.filter(i -> i % 2 == 0).size() == 500 : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    @Test
+    public void codec() {
+        FileBasedCollectionList<String> list = FileBasedCollectionList.<String>builder()
+                .setChunkSize(3)
+                .setCodec(ElementCodec.STRING)
+                .build();
+        list.addAll(Arrays.asList("Horse", null, "Cow", "\u8c5a", "Pig"));
+        assert list.join(", ").equals("Horse, null, Cow, \u8c5a, Pig") : getAssertionErrorMessage(list);
+        assert list.get(1) == null && list.get(3).equals("\u8c5a") : getAssertionErrorMessage(list);
+    }
+
+    @Test
+    public void codecWithoutSerializable() {
+        FileBasedCollectionList<Point> list = FileBasedCollectionList.<Point>builder()
+                .setChunkSize(2)
+                .setCodec(ElementCodec.of((p, out) -> {
+                    out.writeInt(p.x);
+                    out.writeInt(p.y);
+                }, (in, length) -> new Point(in.readInt(), in.readInt())))
+                .build();
+        for (int i = 0; i < 5; i++) list.add(new Point(i, i * i));
+        assert list.get(4).y == 16 : getAssertionErrorMessage(list);
+    }
+
+    @Test
+    public void sort() throws IOException {
+        FileBasedCollectionList<Integer> list = new FileBasedCollectionList<>(10);
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) list.add(random.nextInt(100));
+        list.sort(64);
+        assert list.size() == 1000 : "duplicates must be kept, " + getAssertionErrorMessage(list);
+        for (int i = 1; i < list.size(); i++) {
+            assert list.get(i - 1) <= list.get(i) : getAssertionErrorMessage(list);
+        }
+        list.sort(64, Comparator.reverseOrder());
+        assert list.first() == 99 && list.get(999) == 0 : getAssertionErrorMessage(list);
+    }
+
+    @Test
+    public void sortFailure() throws IOException {
+        Path directory = Files.createTempDirectory("FileBasedCollectionListTest");
+        FileBasedCollectionList<Integer> list = FileBasedCollectionList.<Integer>builder()
+                .setChunkSize(10)
+                .setDirectory(directory)
+                .build();
+        try {
+            for (int i = 0; i < 1000; i++) list.add(i);
+            try {
+                list.sort(100, (a, b) -> {
+                    if (a == 555 || b == 555) throw new IllegalStateException("comparator failed");
+                    return Integer.compare(b, a);
+                });
+                assert false : "the failure of the comparator was not thrown";
+            } catch (IllegalStateException expected) {
+                // expected
+            }
+            // the runs sorted before the failure are closed, so only the file of the list is left
+            try (Stream<Path> files = Files.list(directory)) {
+                assert files.count() == 1 : "the runs were not closed";
+            }
+            assert list.size() == 1000 && list.first() == 0 : getAssertionErrorMessage(list);
+        } finally {
+            list.close();
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void writeBehind() {
+        FileBasedCollectionList<Integer> list = FileBasedCollectionList.<Integer>builder()
+                .setChunkSize(10)
+                .setWriteBehindQueueSize(2)
+                .build();
+        for (int i = 0; i < 1000; i++) list.add(i);
+        assert list.get(505) == 505 : getAssertionErrorMessage(list);
+        assert list.reduce(ICollectionList.Reducer.SUM_INTEGER) == 499500 : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    @Test
+    public void prefetch() {
+        FileBasedCollectionList<Integer> list = FileBasedCollectionList.<Integer>builder()
+                .setChunkSize(10)
+                .setPrefetchDepth(3)
+                .build();
+        for (int i = 0; i < 1000; i++) list.add(i);
+        assert list.contains(999) && !list.contains(1000) : getAssertionErrorMessage(list);
+        assert list.reduce(ICollectionList.Reducer.SUM_INTEGER) == 499500 : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    @Test
+    public void closeWhilePrefetching() {
+        for (int round = 0; round < 3; round++) {
+            FileBasedCollectionList<String> list = FileBasedCollectionList.<String>builder()
+                    .setChunkSize(20_000)
+                    .setCodec(ElementCodec.STRING)
+                    .setStoreType(FileBasedCollectionList.StoreType.MEMORY_MAPPED)
+                    .setPrefetchDepth(8)
+                    .build();
+            for (int i = 0; i < 400_000; i++) list.add("element " + i);
+            // returns at the first chunk while the next chunks are being prefetched
+            assert list.contains("element 0") : getAssertionErrorMessage(list);
+            list.close();
+        }
+        FileBasedCollectionList<String> list = FileBasedCollectionList.<String>builder()
+                .setChunkSize(1000)
+                .setStoreType(FileBasedCollectionList.StoreType.MEMORY_MAPPED)
+                .setPrefetchDepth(8)
+                .build();
+        for (int i = 0; i < 20_000; i++) list.add("element " + i);
+        // the iterator is never closed, so its prefetches may still be running
+        assert list.iterator().next().equals("element 0") : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    @Test
+    public void parallelStream() {
+        FileBasedCollectionList<Integer> list = new FileBasedCollectionList<>(10);
+        for (int i = 0; i < 1000; i++) list.add(i);
+        list.add(1000); // element in the unflushed chunk
+        assert list.spliterator().getExactSizeIfKnown() == 1001 : getAssertionErrorMessage(list);
+        assert list.stream().parallel().mapToLong(Integer::longValue).sum() == 500500L : getAssertionErrorMessage(list);
+        assert list.stream().parallel().filter(i -> i % 2 == 0).count() == 501 : getAssertionErrorMessage(list);
+        assert list.stream().parallel().skip(10).findFirst().orElse(-1) == 10 : getAssertionErrorMessage(list);
+    }
+
+    @Test
+    public void parallelOperations() {
+        FileBasedCollectionList<Integer> list = new FileBasedCollectionList<>(10);
+        for (int i = 999; i >= 0; i--) list.add(i);
+        Parallelism parallelism = Parallelism.DEFAULT.withThreshold(100);
+        assert list.parallelReduce(parallelism, 0L, (sum, i) -> sum + i, Long::sum) == 499500L : getAssertionErrorMessage(list);
+        assert list.parallelSorted(parallelism, Comparator.naturalOrder()) == list : getAssertionErrorMessage(list);
+        assert list.size() == 1000 && list.first() == 0 && list.get(500) == 500 && list.last() == 999 : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    @Test
+    public void remove() throws IOException {
+        FileBasedCollectionList<Integer> list = FileBasedCollectionList.<Integer>builder()
+                .setChunkSize(10)
+                .setCompactionThreshold(0.3)
+                .build();
+        for (int i = 0; i < 1000; i++) list.add(i);
+        list.add(1000); // element in the unflushed chunk
+        assert list.remove(500) == 500 && list.get(500) == 501 : getAssertionErrorMessage(list);
+        assert list.remove((Integer) 1000) && !list.remove((Integer) 1000) : getAssertionErrorMessage(list);
+        assert list.removeAll(Arrays.asList(0, 1, 2, 999)) : getAssertionErrorMessage(list);
+        assert list.size() == 995 && list.first() == 3 && list.last() == 998 : getAssertionErrorMessage(list);
+        assert list.removeIf(i -> i % 10 != 0) : getAssertionErrorMessage(list);
+        assert list.size() == 98 && list.get(49) == 510 && list.indexOf(510) == 49 : getAssertionErrorMessage(list);
+        assert list.lastIndexOf(990) == 97 : getAssertionErrorMessage(list);
+        assert list.stream().parallel().mapToInt(Integer::intValue).sum() == 49000 : getAssertionErrorMessage(list);
+        list.compact();
+        assert list.size() == 98 && list.get(97) == 990 : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    @Test
+    public void bloomFilter() throws IOException {
+        FileBasedCollectionList<String> list = FileBasedCollectionList.<String>builder()
+                .setChunkSize(10)
+                .setBloomFilterBits(10)
+                .build();
+        for (int i = 0; i < 1000; i++) list.add(Integer.toString(i));
+        list.add(null);
+        assert list.contains("0") && list.contains("999") && list.contains(null) : getAssertionErrorMessage(list);
+        assert !list.contains("1000") && !list.contains("-1") : getAssertionErrorMessage(list);
+        assert list.containsAll(Arrays.asList("5", "505", "995", null)) : getAssertionErrorMessage(list);
+        assert !list.containsAll(Arrays.asList("5", "1005")) : getAssertionErrorMessage(list);
+        list.set(5, "changed");
+        assert list.contains("changed") && !list.contains("5") : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    @Test
+    public void compression() {
+        for (Compression compression : Arrays.asList(Compression.NONE, Compression.SNAPPY, Compression.SNAPPY_FRAMED, Compression.deflate(9))) {
+            FileBasedCollectionList<String> list = FileBasedCollectionList.<String>builder()
+                    .setChunkSize(100)
+                    .setCompression(compression)
+                    .build();
+            for (int i = 0; i < 1000; i++) list.add("element " + (i % 10));
+            assert list.get(555).equals("element 5") : getAssertionErrorMessage(list);
+            FileBasedCollectionList.CompressionStats stats = list.getCompressionStats();
+            assert stats.getRawBytesWritten() > 0 && stats.getRawBytesRead() > 0 : stats;
+            if (compression == Compression.NONE) {
+                assert stats.getCompressionRatio() == 1 : stats;
+            } else if (compression.getId().equals("deflate")) {
+                assert stats.getCompressionRatio() < 0.5 : stats;
+            }
+            list.close();
+        }
+    }
+
+    @Test
+    public void distinct() {
+        FileBasedCollectionList<Integer> list = new FileBasedCollectionList<>(10);
+        for (int i = 0; i < 1000; i++) list.add(i % 37);
+        list.add(null);
+        list.add(null);
+        FileBasedCollectionList<Integer> distinct = list.distinct(4);
+        assert distinct.size() == 38 && distinct.contains(null) : getAssertionErrorMessage(distinct);
+        assert distinct.stream().filter(Objects::nonNull).mapToInt(Integer::intValue).sum() == 666 : getAssertionErrorMessage(distinct);
+        assert list.unique().size() == 38 : getAssertionErrorMessage(list);
+        distinct.close();
+        list.close();
+    }
+
+    @Test
+    public void groupBy() {
+        FileBasedCollectionList<String> list = new FileBasedCollectionList<>(10);
+        for (int i = 0; i < 1000; i++) list.add("key" + (i % 7));
+        FileBasedCollectionList<Map.Entry<String, Long>> counts = list.groupBy(s -> s, Collectors.counting(), 3);
+        assert counts.size() == 7 : getAssertionErrorMessage(counts);
+        for (Map.Entry<String, Long> entry : counts) {
+            long expected = Integer.parseInt(entry.getKey().substring(3)) < 6 ? 143 : 142;
+            assert entry.getValue() == expected : getAssertionErrorMessage(counts);
+        }
+        FileBasedCollectionList<Map.Entry<Integer, List<String>>> groups = list.groupBy(String::length);
+        assert groups.size() == 1 && groups.first().getValue().size() == 1000 : getAssertionErrorMessage(groups);
+        counts.close();
+        groups.close();
+        list.close();
+    }
+
+    @Test
+    public void persistent() throws IOException {
+        Path path = Files.createTempFile("FileBasedCollectionListTest", ".bin");
+        try {
+            FileBasedCollectionList<String> list = FileBasedCollectionList.<String>builder()
+                    .setChunkSize(10)
+                    .setCompression(Compression.deflate(1))
+                    .setPath(path)
+                    .build();
+            for (int i = 0; i < 95; i++) list.add(Integer.toString(i));
+            list.close();
+            list = FileBasedCollectionList.open(path);
+            assert list.size() == 95 && list.getChunkSize() == 10 : getAssertionErrorMessage(list);
+            assert list.getCompression().getId().equals("deflate") : getAssertionErrorMessage(list);
+            assert list.get(42).equals("42") && list.last().equals("94") : getAssertionErrorMessage(list);
+            list.add("95");
+            list.persist();
+            list.add("not persisted");
+            FileBasedCollectionList<String> reopened = FileBasedCollectionList.open(path);
+            assert reopened.size() == 96 && reopened.last().equals("95") : getAssertionErrorMessage(reopened);
+            reopened.close();
+            list.sort(Comparator.reverseOrder());
+            list.close();
+            list = FileBasedCollectionList.open(path);
+            assert list.size() == 97 && list.first().equals("not persisted") : getAssertionErrorMessage(list);
+            list.remove("50");
+            list.close();
+            list = FileBasedCollectionList.open(path);
+            assert list.size() == 96 && !list.contains("50") : getAssertionErrorMessage(list);
+            list.close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void persistentCodec() throws IOException {
+        Path path = Files.createTempFile("FileBasedCollectionListTest", ".bin");
+        try {
+            FileBasedCollectionList<Integer> list = FileBasedCollectionList.<Integer>builder()
+                    .setCodec(ElementCodec.INTEGER)
+                    .setBloomFilterBits(8)
+                    .setStoreType(FileBasedCollectionList.StoreType.MEMORY_MAPPED)
+                    .setPath(path)
+                    .build();
+            for (int i = 0; i < 1000; i++) list.add(i);
+            list.close();
+            list = FileBasedCollectionList.<Integer>builder()
+                    .setStoreType(FileBasedCollectionList.StoreType.MEMORY_MAPPED)
+                    .open(path);
+            assert list.getCodec() == ElementCodec.INTEGER && list.getBloomFilterBits() == 8 : getAssertionErrorMessage(list);
+            assert list.contains(777) && !list.contains(1000) : getAssertionErrorMessage(list);
+            assert list.reduce(ICollectionList.Reducer.SUM_INTEGER) == 499500 : getAssertionErrorMessage(list);
+            list.close();
+            try {
+                FileBasedCollectionList.open(path, ElementCodec.LONG).close();
+                assert false : "codec mismatch was not detected";
+            } catch (IOException expected) {
+                // expected
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void reclaim() throws IOException {
+        Path path = Files.createTempFile("FileBasedCollectionListTest", ".bin");
+        try {
+            FileBasedCollectionList<Integer> list = FileBasedCollectionList.<Integer>builder()
+                    .setChunkSize(1000)
+                    .setCodec(ElementCodec.INTEGER)
+                    .setPath(path)
+                    .build();
+            for (int i = 0; i < 20_000; i++) list.add(i);
+            list.persist();
+            long size = Files.size(path);
+            // alternates between the chunks, so every set rewrites a chunk
+            for (int i = 0; i < 10_000; i++) {
+                list.set(i, -i);
+                list.set(19_999 - i, i - 19_999);
+            }
+            list.persist();
+            assert Files.size(path) < 2 * size : Files.size(path) + " bytes, was " + size;
+            list.close();
+            list = FileBasedCollectionList.open(path, ElementCodec.INTEGER);
+            assert list.size() == 20_000 && list.get(1234) == -1234 && list.last() == -19_999 : getAssertionErrorMessage(list);
+            list.close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+        FileBasedCollectionList<Integer> list = new FileBasedCollectionList<>(10);
+        for (int i = 0; i < 100; i++) list.add(i);
+        for (int i = 0; i < 50; i++) {
+            list.set(i, -i);
+            list.set(99 - i, i - 99);
+        }
+        list.compact();
+        assert list.size() == 100 && list.get(42) == -42 && list.get(57) == -57 : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    private static final class Point {
+        private final int x;
+        private final int y;
+
+        private Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + x + ", " + y + ")";
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package test.util;
+
+import org.junit.jupiter.api.Test;
+import util.collection.IndexedCollectionSet;
+import util.collection.Parallelism;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+
+public class IndexedCollectionSetTest {
+    @Test
+    public void order() {
+        IndexedCollectionSet<String> set = IndexedCollectionSet.of("c", "a", "b", "a", "c");
+        assert set.size() == 3 && set.join(",").equals("c,a,b") : set;
+        assert set.first().equals("c") && set.last().equals("b") && set.get(1).equals("a") : set;
+        assert set.indexOf("b") == 2 && set.indexOf("d") == -1 && set.contains("a") : set;
+        assert !set.add("a") && set.add("d") && set.last().equals("d") : set;
+        assert set.equals(Arrays.asList("c", "a", "b", "d")) : set;
+    }
+
+    @Test
+    public void remove() {
+        IndexedCollectionSet<Integer> set = IndexedCollectionSet.of(0, 1, 2, 3, 4, 5);
+        assert set.swapRemove(Integer.valueOf(1)) && set.equals(Arrays.asList(0, 5, 2, 3, 4)) : set;
+        assert set.indexOf(5) == 1 : set.indexOf(5);
+        assert set.remove(Integer.valueOf(0)) && set.equals(Arrays.asList(5, 2, 3, 4)) && set.indexOf(4) == 3 : set;
+        assert set.removeIf(i -> i % 2 == 0) && set.equals(Arrays.asList(5, 3)) && set.indexOf(3) == 1 : set;
+        assert set.swapRemove(1) == 3 && set.size() == 1 && !set.contains(3) : set;
+        set.add(0, 7);
+        assert set.equals(Arrays.asList(7, 5)) && set.indexOf(5) == 1 : set;
+    }
+
+    @Test
+    public void duplicates() {
+        IndexedCollectionSet<String> set = IndexedCollectionSet.of("a", "b");
+        try {
+            set.set(0, "b");
+            assert false : "Expected IllegalArgumentException";
+        } catch (IllegalArgumentException ignore) {}
+        assert set.set(0, "c").equals("a") && set.indexOf("c") == 0 && !set.contains("a") : set;
+        assert set.addAll(1, Arrays.asList("b", "d", "e")) && set.equals(Arrays.asList("c", "d", "e", "b")) : set;
+        assert set.indexOf("b") == 3 : set.indexOf("b");
+        assert set.unique().equals(set) && set.clone().indexOf("e") == 2 : set;
+    }
+
+    @Test
+    public void reorder() {
+        IndexedCollectionSet<Integer> set = new IndexedCollectionSet<>();
+        for (int i = 0; i < 100; i++) set.add(i);
+        IndexedCollectionSet<Integer> shuffled = set.shuffle();
+        assert shuffled.size() == 100 && shuffled.containsAll(set) && set.get(42) == 42 : shuffled;
+        for (int i = 0; i < 100; i++) assert shuffled.indexOf(shuffled.get(i)) == i : shuffled;
+        assert shuffled.parallelSorted(Comparator.naturalOrder()).equals(set) && shuffled.indexOf(42) == 42 : shuffled;
+        assert shuffled.parallelSorted(Parallelism.of(ForkJoinPool.commonPool(), 10), Comparator.reverseOrder()).first() == 99;
+        assert shuffled.indexOf(0) == 99 : shuffled.indexOf(0);
+        IndexedCollectionSet<Integer> reversed = IndexedCollectionSet.of(1, 2, 3).reverse();
+        assert reversed.equals(Arrays.asList(3, 2, 1)) && reversed.indexOf(3) == 0 && reversed.indexOf(1) == 2 : reversed;
+    }
+}
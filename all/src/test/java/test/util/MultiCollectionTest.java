@@ -1,8 +1,15 @@
 package test.util;
 
 import org.junit.jupiter.api.Test;
+import util.collection.ConcurrentMultiCollection;
 import util.collection.MultiCollection;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 public class MultiCollectionTest {
     public static final MultiCollection<String, String> map = new MultiCollection<>();
 
@@ -57,4 +64,32 @@ public class MultiCollectionTest {
         map.add("a", "a");
         map.add("a", "b");
     }
+
+    @Test
+    public void addAll() {
+        MultiCollection<String, Integer> collection = new MultiCollection<>();
+        collection.addAll("a", Arrays.asList(1, 2, 3));
+        collection.add("a", 4);
+        collection.addAll("b", Collections.emptyList());
+        assert collection.size("a") == 4 && collection.get("a", 3) == 4 : collection.get("a");
+        assert !collection.containsKey("b") && collection.size("b") == 0 && collection.get("b", 0) == null;
+    }
+
+    @Test
+    public void concurrentAdd() throws InterruptedException {
+        ConcurrentMultiCollection<Integer, Integer> collection = new ConcurrentMultiCollection<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++) collection.add(i % 10, thread);
+                collection.addAll(thread, Arrays.asList(-1, -2));
+            });
+        }
+        executor.shutdown();
+        assert executor.awaitTermination(1, TimeUnit.MINUTES);
+        assert collection.size() == 10 : collection.size();
+        assert collection.size(9) == 800 && collection.size(0) == 802 : collection.size(0);
+        assert collection.toMultiCollection().size(3) == 802;
+    }
 }
@@ -0,0 +1,56 @@
+package test.util;
+
+import org.junit.jupiter.api.Test;
+import util.collection.OffHeapRecordList;
+import util.collection.RecordCodec;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+
+public class OffHeapRecordListTest {
+    private static final RecordCodec<Map.Entry<Integer, Double>> ENTRY = RecordCodec.of(12,
+            (e, buffer, offset) -> {
+                buffer.putInt(offset, e.getKey());
+                buffer.putDouble(offset + 4, e.getValue());
+            },
+            (buffer, offset) -> new AbstractMap.SimpleEntry<>(buffer.getInt(offset), buffer.getDouble(offset + 4)));
+
+    @Test
+    public void addAndGet() {
+        try (OffHeapRecordList<Integer> list = new OffHeapRecordList<>(RecordCodec.INTEGER, 100)) {
+            for (int i = 0; i < 1000; i++) list.add(i * 2);
+            assert list.size() == 1000 && list.getAllocatedBytes() == 4000 : list.getAllocatedBytes();
+            assert list.get(0) == 0 && list.get(999) == 1998 && list.last() == 1998 : list.get(999);
+            assert list.indexOf(500) == 250 && !list.contains(501) : list.indexOf(500);
+            assert list.set(250, -1) == 500 && list.get(250) == -1 : list.get(250);
+            assert list.filter(i -> i < 10).size() == 6 : list.filter(i -> i < 10).size();
+            assert list.map(i -> i + "").get(1).equals("2") : list.map(i -> i + "").get(1);
+            assert list.max(3).equals(Arrays.asList(0, 2, 4)) && list.slice(0, 3).hashCode() == Arrays.asList(0, 2, 4).hashCode();
+            assert !list.equals(Arrays.asList(0, 2)) && list.toString().startsWith("[0, 2, 4, ") : list.toString().substring(0, 20);
+            OffHeapRecordList<Integer> clone = list.clone();
+            list.clear();
+            assert list.isEmpty() && list.getAllocatedBytes() == 0 && clone.get(999) == 1998 : clone.size();
+            clone.close();
+            assert clone.isClosed() && clone.isEmpty();
+        }
+    }
+
+    @Test
+    public void cursor() {
+        try (OffHeapRecordList<Map.Entry<Integer, Double>> list = new OffHeapRecordList<>(ENTRY, 7)) {
+            for (int i = 0; i < 100; i++) list.add(new AbstractMap.SimpleEntry<>(i, i / 2.0));
+            double[] sum = new double[1];
+            list.forEachRecord(cursor -> sum[0] += cursor.getDouble(4));
+            assert sum[0] == 2475.0 : sum[0];
+            OffHeapRecordList<Map.Entry<Integer, Double>>.Cursor cursor = list.cursor();
+            assert cursor.moveTo(42).getInt(0) == 42 && cursor.get().getValue() == 21.0 : cursor.get();
+            assert cursor.next() && cursor.getIndex() == 43 && cursor.getInt(0) == 43 : cursor.getIndex();
+            list.clear();
+            try {
+                cursor.getInt(0);
+                assert false : "Expected IllegalStateException";
+            } catch (IllegalStateException ignore) {}
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package test.util;
+
+import org.junit.jupiter.api.Test;
+import util.collection.PersistentCollectionList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+public class PersistentCollectionListTest {
+    @Test
+    public void plus() {
+        PersistentCollectionList<Integer> list = PersistentCollectionList.empty();
+        List<Integer> expected = new ArrayList<>();
+        PersistentCollectionList<Integer> snapshot = null;
+        for (int i = 0; i < 40000; i++) {
+            list = list.plus(i);
+            expected.add(i);
+            if (i == 1000) snapshot = list;
+        }
+        assert list.equals(expected) : list.size();
+        assert snapshot != null && snapshot.size() == 1001 && snapshot.last() == 1000 : snapshot.size();
+        PersistentCollectionList<Integer> updated = list.with(1234, -1).with(39999, -2);
+        assert updated.get(1234) == -1 && updated.last() == -2 && list.get(1234) == 1234 && list.last() == 39999;
+        assert list.clone() == list && list.indexOf(33333) == 33333 : list.indexOf(33333);
+        try {
+            list.add(1);
+            assert false : "Expected UnsupportedOperationException";
+        } catch (UnsupportedOperationException ignore) {}
+    }
+
+    @Test
+    public void slice() {
+        PersistentCollectionList<Integer> list = PersistentCollectionList.<Integer>builder().addAll(range(0, 5000)).build();
+        PersistentCollectionList<Integer> slice = list.slice(100, 200);
+        assert slice.size() == 100 && slice.first() == 100 && slice.last() == 199 : slice;
+        assert slice.equals(range(100, 200)) && list.max(10).equals(range(0, 10)) && list.limit(4990).equals(range(4990, 5000));
+        PersistentCollectionList<Integer> appended = slice.plus(-1);
+        assert appended.size() == 101 && appended.last() == -1 && list.get(200) == 200 : appended.last();
+        assert list.slice(4000).plusAll(range(0, 3)).last() == 2 && list.size() == 5000;
+        assert slice.reverse().first() == 199 && slice.filter(i -> i % 2 == 0).size() == 50;
+        assert slice.map(i -> i * 2).get(1) == 202 && list.slice(10, 5).isEmpty();
+    }
+
+    @Test
+    public void builder() {
+        PersistentCollectionList<Integer> list = PersistentCollectionList.of(1, 2, 3);
+        PersistentCollectionList.Builder<Integer> builder = list.toBuilder();
+        for (int i = 4; i <= 3000; i++) builder.add(i);
+        PersistentCollectionList<Integer> built = builder.build();
+        builder.set(0, -1).set(2999, -2).add(3001);
+        PersistentCollectionList<Integer> rebuilt = builder.build();
+        assert list.size() == 3 && built.size() == 3000 && built.get(0) == 1 && built.last() == 3000 : built.size();
+        assert rebuilt.size() == 3001 && rebuilt.get(0) == -1 && rebuilt.get(2999) == -2 && rebuilt.last() == 3001;
+        assert built.thenAdd(5).last() == 5 && built.size() == 3000;
+        PersistentCollectionList<Integer> sorted = built.reverse().parallelSorted(Comparator.naturalOrder());
+        assert sorted.equals(built) && built.reverse().first() == 3000 : sorted.first();
+        assert PersistentCollectionList.of(2, 3, 1).parallelSorted(Comparator.reverseOrder()).equals(Arrays.asList(3, 2, 1));
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = from; i < to; i++) list.add(i);
+        return list;
+    }
+}
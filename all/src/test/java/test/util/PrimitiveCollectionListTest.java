@@ -0,0 +1,70 @@
+package test.util;
+
+import org.junit.jupiter.api.Test;
+import util.collection.CollectionList;
+import util.collection.DoubleCollectionList;
+import util.collection.IntCollectionList;
+import util.collection.LongCollectionList;
+
+import java.nio.IntBuffer;
+
+public class PrimitiveCollectionListTest {
+    @Test
+    public void intList() {
+        IntCollectionList list = new IntCollectionList();
+        for (int i = 0; i < 100; i++) list.add(i);
+        assert list.size() == 100 && list.sum() == 4950 : list;
+        assert list.filter(i -> i % 2 == 0).map(i -> i * 3).reduce(Integer::sum, 0) == 7350 : list;
+        assert list.slice(95).join().equals("95,96,97,98,99") : list.slice(95);
+        assert list.slice(2, 4).equals(IntCollectionList.of(2, 3)) : list.slice(2, 4);
+        assert list.first().getAsInt() == 0 && list.last().getAsInt() == 99 : list;
+        assert list.shuffle().sorted().equals(list) : list;
+        assert list.reverse().get(0) == 99 : list.reverse();
+        list.removeIf(i -> i >= 10);
+        list.removeAt(0);
+        assert list.join(" ").equals("1 2 3 4 5 6 7 8 9") : list;
+    }
+
+    @Test
+    public void intSumDoesNotOverflow() {
+        IntCollectionList list = IntCollectionList.of(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        assert list.sum() == 2L * Integer.MAX_VALUE : list.sum();
+    }
+
+    @Test
+    public void asIntBuffer() {
+        IntCollectionList list = IntCollectionList.of(1, 2, 3);
+        IntBuffer buffer = list.asIntBuffer();
+        buffer.put(1, 20);
+        assert buffer.remaining() == 3 && list.get(1) == 20 : list;
+        int[] array = list.toIntArray();
+        array[0] = 10;
+        assert list.get(0) == 1 : list;
+    }
+
+    @Test
+    public void forEach() {
+        long[] sum = new long[2];
+        IntCollectionList.of(1, 2, 3).forEachInt(i -> sum[0] += i);
+        IntCollectionList.of(1, 2, 3).forEach(i -> sum[1] += i);
+        double[] doubles = new double[1];
+        DoubleCollectionList.of(0.5, 1.5).forEachDouble(d -> doubles[0] += d);
+        LongCollectionList.of(4, 5).forEachLong(l -> sum[0] += l);
+        assert sum[0] == 15 && sum[1] == 6 && doubles[0] == 2.0 : sum[0];
+    }
+
+    @Test
+    public void boxed() {
+        CollectionList<Integer> boxed = IntCollectionList.of(3, 1, 2).boxed();
+        assert boxed.equals(CollectionList.of(3, 1, 2)) : boxed;
+        assert IntCollectionList.from(boxed).sorted().equals(IntCollectionList.of(1, 2, 3));
+    }
+
+    @Test
+    public void longAndDoubleList() {
+        LongCollectionList longs = LongCollectionList.of(1L << 40, 1L << 40);
+        assert longs.sum() == 1L << 41 && longs.indexOf(1L << 40) == 0 && longs.lastIndexOf(1L << 40) == 1 : longs;
+        DoubleCollectionList doubles = DoubleCollectionList.of(0.5, 1.5, Double.NaN);
+        assert doubles.contains(Double.NaN) && doubles.filter(d -> !Double.isNaN(d)).average().getAsDouble() == 1.0 : doubles;
+    }
+}
@@ -0,0 +1,100 @@
+package test.util;
+
+import org.junit.jupiter.api.Test;
+import util.collection.FileBasedCollectionList;
+import util.collection.ICollectionList;
+import util.collection.SpillingCollectionList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SpillingCollectionListTest {
+    @SuppressWarnings("StringBufferReplaceableByString")
+    public String getAssertionErrorMessage(ICollectionList<?> list) {
+        StringBuilder str = new StringBuilder();
+        str.append("List size: ").append(list.size()).append(", Entries: ").append(list.join());
+        return str.toString();
+    }
+
+    @Test
+    public void spillByElements() {
+        SpillingCollectionList<Integer> list = new SpillingCollectionList<>(100);
+        for (int i = 0; i < 100; i++) list.add(i);
+        assert !list.isSpilled() && list.getSpillTime() == -1 : getAssertionErrorMessage(list);
+        list.add(100);
+        assert list.isSpilled() && list.getSpillSize() == 101 && list.getSpillTime() > 0 : getAssertionErrorMessage(list);
+        for (int i = 101; i < 1000; i++) list.add(i);
+        assert list.size() == 1000 && list.get(500) == 500 : getAssertionErrorMessage(list);
+        assert list.reduce(ICollectionList.Reducer.SUM_INTEGER) == 499500 : getAssertionErrorMessage(list);
+        list.clear();
+        assert !list.isSpilled() && list.isEmpty() : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    @Test
+    public void spillByBytes() {
+        SpillingCollectionList<String> list = SpillingCollectionList.<String>builder()
+                .setMaxBytes(1000, s -> 40 + 2L * s.length())
+                .build();
+        list.add("first");
+        list.remove(0);
+        assert list.getEstimatedBytes() == 0 : getAssertionErrorMessage(list);
+        for (int i = 0; i < 10; i++) list.add("element " + i);
+        assert !list.isSpilled() : getAssertionErrorMessage(list);
+        for (int i = 10; i < 40; i++) list.add("element " + i);
+        assert list.isSpilled() && list.size() == 40 && list.last().equals("element 39") : getAssertionErrorMessage(list);
+        list.close();
+    }
+
+    @Test
+    public void derivedListsWithPath() throws IOException {
+        Path path = Files.createTempFile("SpillingCollectionListTest", ".bin");
+        try {
+            SpillingCollectionList<Integer> list = SpillingCollectionList.<Integer>builder()
+                    .setMaxElements(10)
+                    .setFileBuilder(FileBasedCollectionList.<Integer>builder().setChunkSize(5).setPath(path))
+                    .build();
+            for (int i = 0; i < 20; i++) list.add(i);
+            assert list.isSpilled() : getAssertionErrorMessage(list);
+            SpillingCollectionList<Integer> clone = (SpillingCollectionList<Integer>) list.clone();
+            for (int i = 20; i < 50; i++) clone.add(i);
+            SpillingCollectionList<String> mapped = (SpillingCollectionList<String>) list.map(i -> "#" + i);
+            assert clone.isSpilled() && clone.size() == 50 && mapped.getMaxElements() == 10 : getAssertionErrorMessage(clone);
+            assert mapped.isSpilled() && mapped.get(19).equals("#19") : getAssertionErrorMessage(mapped);
+            clone.close();
+            mapped.close();
+            list.close();
+            // the derived lists spilled to the temporary files, so the file has the elements of the list only
+            FileBasedCollectionList<Integer> reopened = FileBasedCollectionList.open(path);
+            assert reopened.size() == 20 && reopened.last() == 19 : getAssertionErrorMessage(reopened);
+            reopened.close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void writesThroughIterator() {
+        for (boolean spilled : new boolean[] { false, true }) {
+            SpillingCollectionList<Integer> list = new SpillingCollectionList<>(spilled ? 10 : 100);
+            for (int i = 0; i < 30; i++) list.add(i);
+            assert list.isSpilled() == spilled : getAssertionErrorMessage(list);
+            ICollectionList<Integer> reversed = list.reverse();
+            assert reversed.first() == 29 && reversed.last() == 0 : getAssertionErrorMessage(reversed);
+            ICollectionList<Integer> shuffled = list.shuffle();
+            assert shuffled.size() == 30 && shuffled.containsAll(list) && !shuffled.equals(list) : getAssertionErrorMessage(shuffled);
+            list.replaceAll(i -> i * 100);
+            assert list.get(0) == 0 && list.get(7) == 700 && list.last() == 2900 : getAssertionErrorMessage(list);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 30; i++) expected.add(i * 100);
+            assert list.equals(expected) && expected.equals(list) && list.hashCode() == expected.hashCode() : getAssertionErrorMessage(list);
+            assert list.toString().equals(expected.toString()) : list.toString();
+            ((SpillingCollectionList<Integer>) reversed).close();
+            ((SpillingCollectionList<Integer>) shuffled).close();
+            list.close();
+        }
+    }
+}
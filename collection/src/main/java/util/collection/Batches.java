@@ -0,0 +1,114 @@
+package util.collection;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * The implementation of the batch and window iteration of the {@link ICollectionList}. The lists with
+ * {@link RandomAccess} are split into the views of their index ranges, so no element is copied. The other lists are
+ * read once by their iterator, and each batch is copied into a new list.
+ */
+final class Batches {
+    private Batches() {}
+
+    @NotNull
+    static <V> Iterator<List<V>> batches(@NotNull ICollectionList<V> list, int size) {
+        if (!(list instanceof RandomAccess)) return batchesUntil(list.iterator(), size, Long.MAX_VALUE);
+        List<V> view = new ListAdapter<>(list);
+        return new Iterator<List<V>>() {
+            private int from = 0;
+
+            @Override
+            public boolean hasNext() {
+                return from < list.size();
+            }
+
+            @Override
+            public List<V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int to = (int) Math.min((long) from + size, list.size());
+                List<V> batch = view.subList(from, to);
+                from = to;
+                return batch;
+            }
+        };
+    }
+
+    @NotNull
+    static <V> Iterator<List<V>> windows(@NotNull ICollectionList<V> list, int size, int step) {
+        if (list instanceof RandomAccess) {
+            List<V> view = new ListAdapter<>(list);
+            return new Iterator<List<V>>() {
+                private long from = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return from + size <= list.size();
+                }
+
+                @Override
+                public List<V> next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    List<V> window = view.subList((int) from, (int) from + size);
+                    from += step;
+                    return window;
+                }
+            };
+        }
+        Iterator<V> source = list.iterator();
+        return new Iterator<List<V>>() {
+            private final ArrayDeque<V> window = new ArrayDeque<>(size);
+            private boolean first = true;
+            private boolean ready = false;
+
+            @Override
+            public boolean hasNext() {
+                if (ready) return true;
+                if (!first) {
+                    int drop = step;
+                    for (; drop > 0 && !window.isEmpty(); drop--) window.poll();
+                    for (; drop > 0 && source.hasNext(); drop--) source.next();
+                }
+                first = false;
+                while (window.size() < size && source.hasNext()) window.add(source.next());
+                ready = window.size() == size;
+                return ready;
+            }
+
+            @Override
+            public List<V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                ready = false;
+                return new ArrayList<>(window);
+            }
+        };
+    }
+
+    @NotNull
+    static <V> Iterator<List<V>> batchesUntil(@NotNull Iterator<V> source, int maxSize, long timeoutNanos) {
+        return new Iterator<List<V>>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public List<V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                List<V> batch = new ArrayList<>(Math.min(maxSize, 1024));
+                long start = System.nanoTime();
+                while (batch.size() < maxSize && source.hasNext()) {
+                    batch.add(source.next());
+                    if (timeoutNanos != Long.MAX_VALUE && System.nanoTime() - start >= timeoutNanos) break;
+                }
+                return batch;
+            }
+        };
+    }
+}
@@ -1,18 +1,40 @@
 package util.collection;
 
+import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import util.DeepCloneable;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * The Great HashMap
+ * <p>The collection can have the secondary indexes created by {@link #indexBy(String, Function)}, which map the
+ * values to the keys, so {@link #lookup(String, Object)} finds the keys without scanning the whole collection. The
+ * indexes are updated by all methods which modify the collection, including the iterators of {@link #keySet()},
+ * {@link #values()} and {@link #entrySet()} and {@link Map.Entry#setValue(Object)} of the entries. The views
+ * obtained before the first index was created don't update the indexes.
  * @see HashMap The old HashMap (impl)
  * @see Map The old map (interface)
  */
 public class Collection<K, V> extends HashMap<K, V> implements ICollection<K, V> {
+    /**
+     * The secondary indexes by name, or null if there are no indexes.
+     */
+    @Nullable
+    private transient Map<String, ValueIndex<K, V>> indexes;
+
     /**
      * Constructs an empty Collection with the default initial capacity (16) and the default load factor (0.75).
      */
@@ -58,7 +80,12 @@ public class Collection<K, V> extends HashMap<K, V> implements ICollection<K, V>
     @Override
     @SuppressWarnings("unchecked")
     public Collection<K, V> clone() {
-        return (Collection<K, V>) super.clone();
+        Collection<K, V> clone = (Collection<K, V>) super.clone();
+        if (indexes != null) {
+            clone.indexes = null;
+            indexes.forEach((name, index) -> clone.indexBy(name, index.function));
+        }
+        return clone;
     }
 
     @Override
@@ -80,4 +107,365 @@ public class Collection<K, V> extends HashMap<K, V> implements ICollection<K, V>
         this.clone().forEach((k, v) -> collection.add((K) DeepCloneable.clone(k), (V) DeepCloneable.clone(v)));
         return collection;
     }
+
+    /**
+     * Creates the secondary index, which maps the value returned by the function to the keys of the entries. The
+     * function is called for each non-null value when the entry is added or replaced, and the null values are not
+     * indexed. If the index with the same name exists, it is replaced.
+     * <p>The index key of a value must not change while the value is in the collection; put the new value instead
+     * of modifying the value in place. Each index takes the memory for a key reference per entry, and makes the
+     * modifications slower.
+     * @param name the name of the index
+     * @param function the function which returns the index key of the value, for example {@code Profile::getTeam}
+     * @return this collection
+     */
+    @Contract("_, _ -> this")
+    @NotNull
+    public Collection<K, V> indexBy(@NotNull String name, @NotNull Function<? super V, ?> function) {
+        Objects.requireNonNull(name, "name cannot be null");
+        ValueIndex<K, V> index = new ValueIndex<>(Objects.requireNonNull(function, "function cannot be null"));
+        super.forEach(index::add);
+        if (indexes == null) indexes = new LinkedHashMap<>();
+        indexes.put(name, index);
+        return this;
+    }
+
+    /**
+     * Removes the secondary index.
+     * @param name the name of the index
+     * @return true if the index was removed
+     */
+    public boolean dropIndex(@NotNull String name) {
+        if (indexes == null || indexes.remove(name) == null) return false;
+        if (indexes.isEmpty()) indexes = null;
+        return true;
+    }
+
+    public boolean hasIndex(@NotNull String name) {
+        return indexes != null && indexes.containsKey(name);
+    }
+
+    /**
+     * Returns the keys of the entries whose value has the index key. The keys are found in constant time, and the
+     * returned set is the read-only snapshot of them, so it doesn't change when the collection is modified.
+     * @param name the name of the index created by {@link #indexBy(String, Function)}
+     * @param indexKey the index key
+     * @return the keys, or the empty set if there are no such entries
+     * @throws IllegalArgumentException if the index doesn't exist
+     */
+    @NotNull
+    public Set<K> lookup(@NotNull String name, @Nullable Object indexKey) {
+        Set<K> keys = indexedKeys(name, indexKey);
+        return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(keys));
+    }
+
+    @Nullable
+    private Set<K> indexedKeys(@NotNull String name, @Nullable Object indexKey) {
+        ValueIndex<K, V> index = indexes == null ? null : indexes.get(name);
+        if (index == null) throw new IllegalArgumentException("No such index: " + name);
+        return index.keys.get(indexKey);
+    }
+
+    /**
+     * Returns the values of the entries whose value has the index key.
+     * @see #lookup(String, Object)
+     */
+    @NotNull
+    public CollectionList<V> lookupValues(@NotNull String name, @Nullable Object indexKey) {
+        Set<K> keys = indexedKeys(name, indexKey);
+        if (keys == null) return new CollectionList<>();
+        CollectionList<V> values = new CollectionList<>();
+        values.ensureCapacity(keys.size());
+        for (K key : keys) values.add(get(key));
+        return values;
+    }
+
+    private void reindex(Object key, @Nullable V oldValue, @Nullable V newValue) {
+        if (indexes == null || oldValue == newValue) return;
+        @SuppressWarnings("unchecked") K k = (K) key;
+        for (ValueIndex<K, V> index : indexes.values()) {
+            index.remove(k, oldValue);
+            index.add(k, newValue);
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V old = super.put(key, value);
+        reindex(key, old, value);
+        return old;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (indexes == null) {
+            super.putAll(m);
+        } else {
+            m.forEach(this::put);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        V old = super.remove(key);
+        reindex(key, old, null);
+        return old;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!super.remove(key, value)) return false;
+        reindex(key, (V) value, null);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (indexes != null) indexes.values().forEach(index -> index.keys.clear());
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V old = super.putIfAbsent(key, value);
+        if (old == null) reindex(key, null, value);
+        return old;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (!super.replace(key, oldValue, newValue)) return false;
+        reindex(key, oldValue, newValue);
+        return true;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        V old = super.replace(key, value);
+        reindex(key, old, value);
+        return old;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (indexes == null) return super.computeIfAbsent(key, mappingFunction);
+        V old = super.get(key);
+        V value = super.computeIfAbsent(key, mappingFunction);
+        reindex(key, old, value);
+        return value;
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (indexes == null) return super.computeIfPresent(key, remappingFunction);
+        V old = super.get(key);
+        V value = super.computeIfPresent(key, remappingFunction);
+        reindex(key, old, value);
+        return value;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (indexes == null) return super.compute(key, remappingFunction);
+        V old = super.get(key);
+        V value = super.compute(key, remappingFunction);
+        reindex(key, old, value);
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (indexes == null) return super.merge(key, value, remappingFunction);
+        V old = super.get(key);
+        V newValue = super.merge(key, value, remappingFunction);
+        reindex(key, old, newValue);
+        return newValue;
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        super.replaceAll(function);
+        if (indexes != null) {
+            for (ValueIndex<K, V> index : indexes.values()) {
+                index.keys.clear();
+                super.forEach(index::add);
+            }
+        }
+    }
+
+    @NotNull
+    @Override
+    public Set<K> keySet() {
+        if (indexes == null) return super.keySet();
+        return new AbstractSet<K>() {
+            @Override
+            public @NotNull Iterator<K> iterator() {
+                return new IndexedIterator<K>(Collection.super.entrySet().iterator()) {
+                    @Override
+                    protected K get(Entry<K, V> entry) {
+                        return entry.getKey();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Collection.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!containsKey(o)) return false;
+                Collection.this.remove(o);
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                Collection.this.clear();
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public java.util.Collection<V> values() {
+        if (indexes == null) return super.values();
+        return new AbstractCollection<V>() {
+            @Override
+            public @NotNull Iterator<V> iterator() {
+                return new IndexedIterator<V>(Collection.super.entrySet().iterator()) {
+                    @Override
+                    protected V get(Entry<K, V> entry) {
+                        return entry.getValue();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Collection.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsValue(o);
+            }
+
+            @Override
+            public void clear() {
+                Collection.this.clear();
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (indexes == null) return super.entrySet();
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public @NotNull Iterator<Entry<K, V>> iterator() {
+                return new IndexedIterator<Entry<K, V>>(Collection.super.entrySet().iterator()) {
+                    @SuppressWarnings("serial")
+                    @Override
+                    protected Entry<K, V> get(Entry<K, V> entry) {
+                        return new SimpleEntry<K, V>(entry) {
+                            @Override
+                            public V setValue(V value) {
+                                V old = entry.setValue(value);
+                                super.setValue(value);
+                                reindex(entry.getKey(), old, value);
+                                return old;
+                            }
+                        };
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Collection.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return Collection.super.entrySet().contains(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!(o instanceof Entry)) return false;
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                return Collection.this.remove(entry.getKey(), entry.getValue());
+            }
+
+            @Override
+            public void clear() {
+                Collection.this.clear();
+            }
+        };
+    }
+
+    /**
+     * The iterator over the entries, which updates the indexes when the entry is removed.
+     */
+    private abstract class IndexedIterator<T> implements Iterator<T> {
+        private final Iterator<Entry<K, V>> iterator;
+        private Entry<K, V> last;
+
+        private IndexedIterator(@NotNull Iterator<Entry<K, V>> iterator) {
+            this.iterator = iterator;
+        }
+
+        protected abstract T get(Entry<K, V> entry);
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return get(last = iterator.next());
+        }
+
+        @Override
+        public void remove() {
+            K key = last.getKey();
+            V value = last.getValue();
+            iterator.remove();
+            reindex(key, value, null);
+        }
+    }
+
+    /**
+     * The secondary index, which maps the index keys to the keys of the collection.
+     */
+    private static final class ValueIndex<K, V> {
+        private final Function<? super V, ?> function;
+        private final Map<Object, Set<K>> keys = new HashMap<>();
+
+        private ValueIndex(@NotNull Function<? super V, ?> function) {
+            this.function = function;
+        }
+
+        private void add(K key, @Nullable V value) {
+            if (value == null) return;
+            keys.computeIfAbsent(function.apply(value), k -> new HashSet<>()).add(key);
+        }
+
+        private void remove(K key, @Nullable V value) {
+            if (value == null) return;
+            Object indexKey = function.apply(value);
+            Set<K> set = keys.get(indexKey);
+            if (set != null && set.remove(key) && set.isEmpty()) keys.remove(indexKey);
+        }
+    }
 }
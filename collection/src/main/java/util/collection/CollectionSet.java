@@ -46,6 +46,26 @@ public class CollectionSet<V> extends HashSet<V> implements ICollectionList<V>,
         return super.spliterator();
     }
 
+    /**
+     * Returns the list iterator of a snapshot of this set, because the set has no index. The changes made by the
+     * iterator are not reflected to this set.
+     */
+    @NotNull
+    @Override
+    public ListIterator<V> listIterator() {
+        return listIterator(0);
+    }
+
+    /**
+     * Returns the list iterator of a snapshot of this set, starting at the index.
+     * @see #listIterator()
+     */
+    @NotNull
+    @Override
+    public ListIterator<V> listIterator(int index) {
+        return toList().listIterator(index);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -66,12 +86,13 @@ public class CollectionSet<V> extends HashSet<V> implements ICollectionList<V>,
 
     /**
      * {@inheritDoc}
-     * @deprecated order isn't guaranteed, may return different values per call.
+     * @deprecated order isn't guaranteed, may return different values per call. Use {@link IndexedCollectionSet}
+     * to keep the order.
      */
     @Nullable
     @Override
     @Deprecated
-    public V first() { return this.unique().length() == 0 ? null : this.unique().valuesArray()[0]; }
+    public V first() { return this.isEmpty() ? null : this.iterator().next(); }
 
     /**
      * {@inheritDoc}
@@ -86,12 +107,17 @@ public class CollectionSet<V> extends HashSet<V> implements ICollectionList<V>,
 
     /**
      * {@inheritDoc}
-     * @deprecated order isn't guaranteed, may return different values per call.
+     * @deprecated order isn't guaranteed, may return different values per call. Use {@link IndexedCollectionSet}
+     * to keep the order.
      */
     @Nullable
     @Override
     @Deprecated
-    public V last() { return this.unique().length() == 0 ? null : this.unique().valuesArray()[this.unique().length()-1]; }
+    public V last() {
+        V last = null;
+        for (V v : this) last = v;
+        return last;
+    }
 
     /**
      * {@inheritDoc}
@@ -14,7 +14,7 @@ import java.util.function.Function;
  * @see Collection
  * @see HashMap
  * @see Map
- * @deprecated high maintenance cost
+ * @deprecated high maintenance cost, use {@link ConcurrentCollection}
  */
 @Deprecated
 public class CollectionStrictSync<K, V> extends CollectionSync<K, V> {
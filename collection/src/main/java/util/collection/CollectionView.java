@@ -0,0 +1,402 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The lazy view of an {@link Iterable}, created by {@link ICollectionList#view()}. The methods like
+ * {@link #filter(Function)} and {@link #map(Function)} return a new view without copying the elements, and the whole
+ * chain is evaluated element by element only when the view is iterated, by {@link #first()}, {@link #toList()} and
+ * other terminal methods. The terminal methods like {@link #first()} and {@link #anyMatch(Predicate)} stop reading the
+ * source as soon as the result is known.
+ * <p>The view reads the source each time it is iterated, so the changes of the source are visible to the view.
+ * @param <V> the element type
+ */
+public final class CollectionView<V> implements Iterable<V> {
+    private final Iterable<V> source;
+
+    private CollectionView(@NotNull Iterable<V> source) {
+        this.source = source;
+    }
+
+    /**
+     * Creates the view of the iterable.
+     * @param source the iterable
+     * @return the view
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static <V> CollectionView<V> of(@NotNull Iterable<V> source) {
+        return new CollectionView<>(Objects.requireNonNull(source, "source cannot be null"));
+    }
+
+    @Override
+    public @NotNull Iterator<V> iterator() {
+        return source.iterator();
+    }
+
+    /**
+     * Filters values. If returned true, that value will be kept.
+     * @param filter filter function.
+     * @return New view
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public CollectionView<V> filter(@NotNull Function<V, Boolean> filter) {
+        return filter((v, i) -> filter.apply(v));
+    }
+
+    /**
+     * Filters values. If returned true, that value will be kept.
+     * @param filter filter function, which receives the value and its index in this view.
+     * @return New view
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public CollectionView<V> filter(@NotNull BiPredicate<V, Integer> filter) {
+        return new CollectionView<>(() -> new LazyIterator<V>() {
+            private final Iterator<V> iterator = source.iterator();
+            private int index = 0;
+
+            @Override
+            protected V computeNext() {
+                while (iterator.hasNext()) {
+                    V v = iterator.next();
+                    if (filter.test(v, index++)) return v;
+                }
+                return endOfData();
+            }
+        });
+    }
+
+    /**
+     * Returns the view without null values.
+     * @return New view
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public CollectionView<V> nonNull() {
+        return filter(Objects::nonNull);
+    }
+
+    /**
+     * Returns the view without duplicate values. The values seen so far are kept in a {@link HashSet} while the view
+     * is iterated.
+     * @return New view
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public CollectionView<V> unique() {
+        return new CollectionView<>(() -> {
+            Set<V> seen = new HashSet<>();
+            return of(source).filter(seen::add).iterator();
+        });
+    }
+
+    /**
+     * Maps the values with the function.
+     * @param function Function that will run to create a new value.
+     * @return New view with new type.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public <T> CollectionView<T> map(@NotNull Function<V, T> function) {
+        return map((v, i) -> function.apply(v));
+    }
+
+    /**
+     * Maps the values with the function.
+     * @param function Function that will run to create a new value, which receives the value and its index in this
+     *                 view.
+     * @return New view with new type.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public <T> CollectionView<T> map(@NotNull BiFunction<V, Integer, T> function) {
+        return new CollectionView<>(() -> new Iterator<T>() {
+            private final Iterator<V> iterator = source.iterator();
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return function.apply(iterator.next(), index++);
+            }
+        });
+    }
+
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public <T> CollectionView<T> flatMap(@NotNull Function<V, ? extends Iterable<? extends T>> function) {
+        return new CollectionView<>(() -> new LazyIterator<T>() {
+            private final Iterator<V> iterator = source.iterator();
+            private Iterator<? extends T> current = Collections.emptyIterator();
+
+            @Override
+            protected T computeNext() {
+                while (!current.hasNext()) {
+                    if (!iterator.hasNext()) return endOfData();
+                    current = function.apply(iterator.next()).iterator();
+                }
+                return current.next();
+            }
+        });
+    }
+
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public <T> CollectionView<T> arrayFlatMap(@NotNull Function<V, T[]> function) {
+        return flatMap(v -> Arrays.asList(function.apply(v)));
+    }
+
+    /**
+     * Skips the first values, like {@link ICollectionList#limit(long)}.
+     * @param max the number of values to skip
+     * @return New view
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public CollectionView<V> limit(long max) {
+        return new CollectionView<>(() -> {
+            Iterator<V> iterator = source.iterator();
+            for (long i = 0; i < max && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+            return iterator;
+        });
+    }
+
+    /**
+     * Keeps the first values, like {@link ICollectionList#max(long)}. The source is not read after the values are
+     * taken.
+     * @param max the number of values to keep
+     * @return New view
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public CollectionView<V> max(long max) {
+        return new CollectionView<>(() -> new Iterator<V>() {
+            private final Iterator<V> iterator = source.iterator();
+            private long remaining = max;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0 && iterator.hasNext();
+            }
+
+            @Override
+            public V next() {
+                if (remaining <= 0) throw new NoSuchElementException();
+                remaining--;
+                return iterator.next();
+            }
+        });
+    }
+
+    /**
+     * Returns the view of the values from the start.
+     * @param start Zero-based index at which to start extraction.
+     * @return New view
+     * @see ICollectionList#slice(int)
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public CollectionView<V> slice(int start) {
+        return limit(start);
+    }
+
+    /**
+     * Returns the view of the values from the start to the end (end not included).
+     * @param start Zero-based index at which to start extraction.
+     * @param end Zero-based index before which to end extraction.
+     * @return New view
+     * @see ICollectionList#slice(int, int)
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    @NotNull
+    public CollectionView<V> slice(int start, int end) {
+        return limit(start).max(Math.max(0, end - start));
+    }
+
+    /**
+     * Returns the first value, or null if the view is empty.
+     */
+    @Nullable
+    public V first() {
+        Iterator<V> iterator = source.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Returns the last value, or null if the view is empty.
+     */
+    @Nullable
+    public V last() {
+        V last = null;
+        for (V v : source) {
+            last = v;
+        }
+        return last;
+    }
+
+    /**
+     * Returns whether any value matches the predicate. The source is not read after the matching value is found.
+     */
+    public boolean anyMatch(@NotNull Predicate<V> predicate) {
+        for (V v : source) {
+            if (predicate.test(v)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether all values match the predicate. The source is not read after the non-matching value is found.
+     */
+    public boolean allMatch(@NotNull Predicate<V> predicate) {
+        return !anyMatch(predicate.negate());
+    }
+
+    /**
+     * Returns the number of the values.
+     */
+    public long count() {
+        long count = 0;
+        for (V ignored : source) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Merges the values into the one.
+     * @param biFunction the function to be run, which receives the value previously returned and the value
+     * @param initialValue the initial value
+     * @see ICollectionList#reduce(BiFunction, Object)
+     */
+    public <U> U reduce(@NotNull BiFunction<U, V, U> biFunction, @Nullable U initialValue) {
+        U result = initialValue;
+        for (V v : source) {
+            result = biFunction.apply(result, v);
+        }
+        return result;
+    }
+
+    /**
+     * Joins the values with a comma.
+     * @see ICollectionList#join()
+     */
+    @NotNull
+    public String join() {
+        return join(null);
+    }
+
+    /**
+     * Joins the values with the separator.
+     * @param s the separator, or null to use a comma
+     * @see ICollectionList#join(String)
+     */
+    @NotNull
+    public String join(@Nullable String s) {
+        StringBuilder str = new StringBuilder();
+        Iterator<V> iterator = source.iterator();
+        while (iterator.hasNext()) {
+            str.append(iterator.next());
+            if (iterator.hasNext()) str.append(s == null ? "," : s);
+        }
+        return str.toString();
+    }
+
+    /**
+     * Evaluates the view into a new list.
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public CollectionList<V> toList() {
+        CollectionList<V> list = new CollectionList<>();
+        source.forEach(list::add);
+        return list;
+    }
+
+    /**
+     * Evaluates the view with the collector.
+     */
+    public <R, A> R collect(@NotNull Collector<? super V, A, R> collector) {
+        A container = collector.supplier().get();
+        for (V v : source) {
+            collector.accumulator().accept(container, v);
+        }
+        return collector.finisher().apply(container);
+    }
+
+    /**
+     * Returns the sequential stream of the values.
+     */
+    @NotNull
+    public Stream<V> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public Spliterator<V> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+    }
+
+    /**
+     * The iterator which computes the next value when {@link #hasNext()} is called.
+     */
+    private abstract static class LazyIterator<T> implements Iterator<T> {
+        private T next;
+        private boolean ready = false;
+        private boolean done = false;
+
+        /**
+         * Returns the next value, or {@link #endOfData()} if there are no more values.
+         */
+        protected abstract T computeNext();
+
+        protected final T endOfData() {
+            done = true;
+            return null;
+        }
+
+        @Override
+        public final boolean hasNext() {
+            if (!ready && !done) {
+                next = computeNext();
+                ready = !done;
+            }
+            return ready;
+        }
+
+        @Override
+        public final T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ready = false;
+            T t = next;
+            next = null;
+            return t;
+        }
+    }
+}
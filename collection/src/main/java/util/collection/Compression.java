@@ -0,0 +1,194 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.xerial.snappy.Snappy;
+import org.xerial.snappy.SnappyFramedInputStream;
+import org.xerial.snappy.SnappyFramedOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the chunks of the {@link FileBasedCollectionList}. Each chunk is compressed on its own.
+ * <p>The {@link #getId() id} of the compression is written to the persistent files, and the compressions defined
+ * in this interface are found by their id when the file is reopened.
+ * @see FileBasedCollectionList.Builder#setCompression(Compression)
+ */
+public interface Compression {
+    /**
+     * Writes the chunks as they are. This is the fastest when the disk is fast or the elements don't compress well.
+     */
+    Compression NONE = new Compression() {
+        @Override
+        public @NotNull String getId() {
+            return "none";
+        }
+
+        @Override
+        public byte @NotNull [] compress(byte @NotNull [] bytes) {
+            return bytes;
+        }
+
+        @Override
+        public byte @NotNull [] uncompress(byte @NotNull [] bytes) {
+            return bytes;
+        }
+    };
+
+    /**
+     * Compresses the chunks with Snappy. This is the default.
+     */
+    Compression SNAPPY = new Compression() {
+        @Override
+        public @NotNull String getId() {
+            return "snappy";
+        }
+
+        @Override
+        public byte @NotNull [] compress(byte @NotNull [] bytes) throws IOException {
+            return Snappy.compress(bytes);
+        }
+
+        @Override
+        public byte @NotNull [] uncompress(byte @NotNull [] bytes) throws IOException {
+            return Snappy.uncompress(bytes);
+        }
+    };
+
+    /**
+     * Compresses the chunks with the Snappy framing format, which splits the chunk into blocks of up to 64 KiB and
+     * checks the CRC32C of each block when reading. This is slower than {@link #SNAPPY}, but detects corrupted chunks.
+     */
+    Compression SNAPPY_FRAMED = new Compression() {
+        @Override
+        public @NotNull String getId() {
+            return "snappy-framed";
+        }
+
+        @Override
+        public byte @NotNull [] compress(byte @NotNull [] bytes) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            try (OutputStream stream = new SnappyFramedOutputStream(out)) {
+                stream.write(bytes);
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public byte @NotNull [] uncompress(byte @NotNull [] bytes) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 2);
+            try (InputStream stream = new SnappyFramedInputStream(new ByteArrayInputStream(bytes))) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            return out.toByteArray();
+        }
+    };
+
+    /**
+     * Returns the id of this compression, which is written to the persistent files.
+     * @return the id
+     */
+    @NotNull
+    String getId();
+
+    /**
+     * Compresses the bytes.
+     * @param bytes the bytes to compress
+     * @return the compressed bytes
+     * @throws IOException if the bytes could not be compressed
+     */
+    byte @NotNull [] compress(byte @NotNull [] bytes) throws IOException;
+
+    /**
+     * Uncompresses the bytes returned by {@link #compress(byte[])}.
+     * @param bytes the compressed bytes
+     * @return the uncompressed bytes
+     * @throws IOException if the bytes are corrupted
+     */
+    byte @NotNull [] uncompress(byte @NotNull [] bytes) throws IOException;
+
+    /**
+     * Creates the compression using the {@link Deflater} at the level. Deflate is slower than Snappy, but compresses
+     * much better, especially the repetitive strings. The level is only used for the compression, so the chunks
+     * written at any level can be read by any deflate compression.
+     * @param level the compression level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @return the compression
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    static Compression deflate(int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid level: " + level);
+        }
+        return new Compression() {
+            @Override
+            public @NotNull String getId() {
+                return "deflate";
+            }
+
+            /**
+             * Writes the uncompressed length, followed by the deflate stream.
+             */
+            @Override
+            public byte @NotNull [] compress(byte @NotNull [] bytes) {
+                Deflater deflater = new Deflater(level);
+                try {
+                    deflater.setInput(bytes);
+                    deflater.finish();
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+                    out.write(bytes.length >>> 24);
+                    out.write(bytes.length >>> 16);
+                    out.write(bytes.length >>> 8);
+                    out.write(bytes.length);
+                    byte[] buffer = new byte[8192];
+                    while (!deflater.finished()) {
+                        out.write(buffer, 0, deflater.deflate(buffer));
+                    }
+                    return out.toByteArray();
+                } finally {
+                    deflater.end();
+                }
+            }
+
+            @Override
+            public byte @NotNull [] uncompress(byte @NotNull [] bytes) throws IOException {
+                if (bytes.length < 4) throw new IOException("Truncated deflate chunk");
+                int length = (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(bytes, 4, bytes.length - 4);
+                    byte[] result = new byte[length];
+                    int done = 0;
+                    while (done < length) {
+                        int read = inflater.inflate(result, done, length - done);
+                        if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                            throw new IOException("Truncated deflate chunk");
+                        }
+                        done += read;
+                    }
+                    return result;
+                } catch (DataFormatException e) {
+                    throw new IOException(e);
+                } finally {
+                    inflater.end();
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "deflate(" + level + ")";
+            }
+        };
+    }
+}
@@ -0,0 +1,310 @@
+package util.collection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import util.DeepCloneable;
+import util.Validate;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The thread-safe {@link ICollection} backed by the {@link ConcurrentHashMap}. Unlike {@link CollectionSync} and
+ * {@link CollectionStrictSync}, this collection doesn't lock the whole map: the reads don't lock at all, and the
+ * writes to the different keys don't block each other.
+ * <p>The methods which visit all entries, like {@link #filter(Function)}, {@link #mapValues(BiFunction)},
+ * {@link #keysList()} and {@link #valuesList()}, traverse the map once without locking. The traversal is weakly
+ * consistent: it reflects the entries as they were at some point during the traversal, and never throws
+ * {@link java.util.ConcurrentModificationException}. Use {@link #computeIfAbsent(Object, Function)},
+ * {@link #getOrAdd(Object, java.util.function.Supplier)} and the other atomic methods to update the entries based on
+ * their current value.
+ * <p>Like the {@link ConcurrentHashMap}, this collection doesn't allow null keys and values.
+ */
+public class ConcurrentCollection<K, V> extends AbstractMap<K, V> implements ICollection<K, V>, ConcurrentMap<K, V> {
+    private final ConcurrentHashMap<K, V> map;
+
+    /**
+     * Constructs an empty collection with the default initial capacity (16).
+     */
+    public ConcurrentCollection() {
+        this.map = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructs an empty collection which can hold the specified number of entries without resizing.
+     */
+    public ConcurrentCollection(int size) {
+        this.map = new ConcurrentHashMap<>(size);
+    }
+
+    /**
+     * Constructs this collection with values.
+     * @param map will be added with this constructor
+     */
+    public ConcurrentCollection(@NotNull Map<? extends K, ? extends V> map) {
+        this.map = new ConcurrentHashMap<>(map);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return map.containsValue(value);
+    }
+
+    @Override
+    public V get(Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        return map.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public V put(@NotNull K key, @NotNull V value) {
+        return map.put(key, value);
+    }
+
+    @Override
+    public void putAll(@NotNull Map<? extends K, ? extends V> m) {
+        map.putAll(m);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return map.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public V putIfAbsent(@NotNull K key, @NotNull V value) {
+        return map.putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean remove(@NotNull Object key, Object value) {
+        return map.remove(key, value);
+    }
+
+    @Override
+    public boolean replace(@NotNull K key, @NotNull V oldValue, @NotNull V newValue) {
+        return map.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public V replace(@NotNull K key, @NotNull V value) {
+        return map.replace(key, value);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, @NotNull Function<? super K, ? extends V> mappingFunction) {
+        return map.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V computeIfPresent(K key, @NotNull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return map.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public V compute(K key, @NotNull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return map.compute(key, remappingFunction);
+    }
+
+    @Override
+    public V merge(K key, @NotNull V value, @NotNull BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return map.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void forEach(@NotNull BiConsumer<? super K, ? super V> action) {
+        map.forEach(action);
+    }
+
+    @Override
+    public void replaceAll(@NotNull BiFunction<? super K, ? super V, ? extends V> function) {
+        map.replaceAll(function);
+    }
+
+    @NotNull
+    @Override
+    public Set<K> keySet() {
+        return map.keySet();
+    }
+
+    @NotNull
+    @Override
+    public java.util.Collection<V> values() {
+        return map.values();
+    }
+
+    @NotNull
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return map.entrySet();
+    }
+
+    /**
+     * Returns the value of any entry, or null if the collection is empty. The order of the entries is not defined.
+     */
+    @Nullable
+    @Override
+    public V first() {
+        Iterator<V> iterator = map.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Returns the key of any entry, or null if the collection is empty. The order of the entries is not defined.
+     */
+    @Nullable
+    @Override
+    public K firstKey() {
+        Iterator<K> iterator = map.keySet().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Returns the value of the entry visited last, or null if the collection is empty. The order of the entries is
+     * not defined.
+     */
+    @Nullable
+    @Override
+    public V last() {
+        V last = null;
+        for (V v : map.values()) last = v;
+        return last;
+    }
+
+    /**
+     * Returns the key of the entry visited last, or null if the collection is empty. The order of the entries is not
+     * defined.
+     */
+    @Nullable
+    @Override
+    public K lastKey() {
+        K last = null;
+        for (K k : map.keySet()) last = k;
+        return last;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The entries are visited once, without locking the collection.
+     */
+    @Override
+    public Collection<K, V> filter(@NotNull Function<V, Boolean> filter) {
+        Collection<K, V> newCollection = new Collection<>();
+        map.forEach((k, v) -> {
+            if (filter.apply(v)) newCollection.put(k, v);
+        });
+        return newCollection;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The entries are visited once, without locking the collection.
+     */
+    @Override
+    public ICollection<K, V> filterKeys(@NotNull Function<K, Boolean> filter) {
+        Collection<K, V> newCollection = new Collection<>();
+        map.forEach((k, v) -> {
+            if (filter.apply(k)) newCollection.put(k, v);
+        });
+        return newCollection;
+    }
+
+    @Override
+    public boolean mayContainsKey(@NotNull K key) {
+        return map.containsKey(key);
+    }
+
+    @Nullable
+    @Override
+    public V find(@NotNull K key) {
+        Validate.notNull(key, "key cannot be null");
+        return map.get(key);
+    }
+
+    @Nullable
+    @Override
+    public V find(@NotNull Predicate<? super K> predicate) {
+        Validate.notNull(predicate, "predicate cannot be null");
+        return map.search(Long.MAX_VALUE, (k, v) -> predicate.test(k) ? v : null);
+    }
+
+    @Nullable
+    @Override
+    public Entry<K, V> findEntry(@NotNull Predicate<? super K> predicate) {
+        Validate.notNull(predicate, "predicate cannot be null");
+        return map.search(Long.MAX_VALUE, (k, v) -> predicate.test(k) ? new SimpleImmutableEntry<>(k, v) : null);
+    }
+
+    @Override
+    @NotNull
+    public <S> CollectionList<S> toList(@NotNull BiFunction<K, V, S> function) {
+        CollectionList<S> list = new CollectionList<>();
+        map.forEach((k, v) -> list.add(function.apply(k, v)));
+        return list;
+    }
+
+    /**
+     * Returns the snapshot of this collection as the {@link Collection}.
+     */
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @Override
+    public Collection<K, V> clone() {
+        return new Collection<>(map);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    @NotNull
+    public ConcurrentCollection<K, V> deepClone() {
+        ConcurrentCollection<K, V> collection = new ConcurrentCollection<>();
+        map.forEach((k, v) -> collection.put((K) DeepCloneable.clone(k), (V) DeepCloneable.clone(v)));
+        return collection;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || map.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+}
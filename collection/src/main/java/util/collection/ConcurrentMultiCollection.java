@@ -0,0 +1,190 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The thread-safe {@link MultiCollection}, backed by the {@link ConcurrentHashMap}. The values of each key are kept
+ * in a {@link CollectionList} guarded by its own lock, so the threads appending to the different keys don't block
+ * each other, and there is no lock for the whole collection.
+ * <p>{@link #get(Object)} and {@link #forEach(BiConsumer)} return the copies of the lists, so the lists can be read
+ * while the other threads are appending to them. Like the {@link ConcurrentHashMap}, the null keys and values are
+ * not allowed.
+ */
+public class ConcurrentMultiCollection<K, V> {
+    private final ConcurrentHashMap<K, CollectionList<V>> map;
+
+    public ConcurrentMultiCollection() {
+        this.map = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructs an empty collection sized for the number of keys.
+     * @param expectedKeys the expected number of keys
+     */
+    public ConcurrentMultiCollection(int expectedKeys) {
+        this.map = new ConcurrentHashMap<>(expectedKeys);
+    }
+
+    @Contract("_, _ -> param2")
+    @NotNull
+    public V add(@NotNull K key, @NotNull V value) {
+        // the list is modified inside compute, so the concurrent removeAll(key) can't drop the value
+        map.compute(key, (k, list) -> {
+            if (list == null) list = new CollectionList<>();
+            synchronized (list) {
+                list.add(value);
+            }
+            return list;
+        });
+        return value;
+    }
+
+    /**
+     * Appends all values to the list of the key at once. The other threads see either none or all of the values.
+     * @param key Key
+     * @param values the values to add
+     */
+    public void addAll(@NotNull K key, @NotNull java.util.Collection<? extends V> values) {
+        if (values.isEmpty()) return;
+        map.compute(key, (k, list) -> {
+            if (list == null) list = new CollectionList<>();
+            synchronized (list) {
+                list.addAll(values);
+            }
+            return list;
+        });
+    }
+
+    /**
+     * Returns the number of the keys.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    public int size(@NotNull K key) {
+        CollectionList<V> list = map.get(key);
+        if (list == null) return 0;
+        synchronized (list) {
+            return list.size();
+        }
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public boolean isEmpty(@NotNull K key) {
+        return size(key) == 0;
+    }
+
+    public boolean containsKey(@NotNull K key) {
+        return map.containsKey(key);
+    }
+
+    public boolean containsEntry(@NotNull K key, @Nullable V value) {
+        CollectionList<V> list = map.get(key);
+        if (list == null) return false;
+        synchronized (list) {
+            return list.contains(value);
+        }
+    }
+
+    /**
+     * Returns the copy of the list of the key.
+     * @param key Key
+     * @return List, null if not found
+     */
+    @Nullable
+    public CollectionList<V> get(@NotNull K key) {
+        CollectionList<V> list = map.get(key);
+        if (list == null) return null;
+        synchronized (list) {
+            return new CollectionList<>(list);
+        }
+    }
+
+    /**
+     * Get value by index.
+     * @param key Key
+     * @param i Index
+     * @return Value, null if the index is out of bounds
+     */
+    @Nullable
+    public V get(@NotNull K key, int i) {
+        CollectionList<V> list = map.get(key);
+        if (list == null) return null;
+        synchronized (list) {
+            return i < 0 || i >= list.size() ? null : list.get(i);
+        }
+    }
+
+    /**
+     * Removes a value from list.
+     * @param key Key
+     * @param value Value
+     */
+    public boolean remove(@NotNull K key, @Nullable V value) {
+        CollectionList<V> list = map.get(key);
+        if (list == null) return false;
+        synchronized (list) {
+            return list.remove(value);
+        }
+    }
+
+    /**
+     * Removes all entries of the key.
+     * @param key Key
+     * @return Removed list
+     */
+    @Nullable
+    public CollectionList<V> removeAll(@NotNull K key) {
+        return map.remove(key);
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Returns the live view of the keys.
+     */
+    @NotNull
+    public Set<K> keySet() {
+        return map.keySet();
+    }
+
+    /**
+     * Runs the consumer with the copy of the list of each key.
+     */
+    public void forEach(@NotNull BiConsumer<K, CollectionList<V>> consumer) {
+        map.forEach((k, list) -> {
+            CollectionList<V> copy;
+            synchronized (list) {
+                copy = new CollectionList<>(list);
+            }
+            consumer.accept(k, copy);
+        });
+    }
+
+    public void foreach(@NotNull BiConsumer<K, V> consumer) {
+        forEach((k, list) -> list.forEach(v -> consumer.accept(k, v)));
+    }
+
+    /**
+     * Returns the snapshot of this collection as the {@link MultiCollection}.
+     */
+    @NotNull
+    @Contract("-> new")
+    public MultiCollection<K, V> toMultiCollection() {
+        MultiCollection<K, V> collection = new MultiCollection<>(map.size(), 0);
+        forEach(collection::addAll);
+        return collection;
+    }
+}
@@ -0,0 +1,39 @@
+package util.collection;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases the memory of direct (and memory-mapped) buffers without waiting for the garbage collector.
+ */
+final class DirectBuffers {
+    private DirectBuffers() {}
+
+    /**
+     * Frees the memory of the buffer. The buffer must not be a slice or a duplicate of another buffer, and must not
+     * be used after calling this method. If the memory could not be freed immediately, it will be freed by the
+     * garbage collector instead.
+     * @param buffer the buffer to free
+     */
+    static void free(@NotNull ByteBuffer buffer) {
+        if (!buffer.isDirect()) return;
+        try {
+            // Java 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException ignore) {}
+        try {
+            // Java 8
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+        } catch (ReflectiveOperationException | RuntimeException ignore) {}
+    }
+}
@@ -0,0 +1,479 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import util.magic.Magic;
+
+import java.io.Serializable;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.DoubleStream;
+
+/**
+ * The list of <code>double</code> values, backed by an <code>double[]</code> array. Unlike
+ * <code>CollectionList&lt;Double&gt;</code>, the values are not boxed, so the list uses several times less memory
+ * and the methods like {@link #map(DoubleUnaryOperator)} and {@link #sum()} don't allocate per value.
+ * <p>The methods follow {@link ICollectionList}: {@link #map(DoubleUnaryOperator)}, {@link #filter(DoublePredicate)},
+ * {@link #slice(int, int)}, {@link #shuffle()} and {@link #reverse()} return a new list, and {@link #sorted()} sorts
+ * this list and returns it. Use {@link #boxed()} to get the values as the {@link CollectionList}.
+ */
+public class DoubleCollectionList implements Iterable<Double>, RandomAccess, Cloneable, Serializable {
+    private static final long serialVersionUID = Magic.VERSION;
+    private static final double[] EMPTY = new double[0];
+
+    private double[] values;
+    private int size;
+
+    public DoubleCollectionList() {
+        this.values = EMPTY;
+    }
+
+    /**
+     * Creates the empty list which can hold <code>capacity</code> values without growing.
+     * @param capacity the initial capacity
+     */
+    public DoubleCollectionList(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity cannot be negative");
+        this.values = capacity == 0 ? EMPTY : new double[capacity];
+    }
+
+    private DoubleCollectionList(double @NotNull [] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Creates the list containing the copy of the values.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static DoubleCollectionList of(double @NotNull ... values) {
+        return new DoubleCollectionList(values.clone(), values.length);
+    }
+
+    /**
+     * Creates the list using the array as the storage, without copying it. The changes made to the array are
+     * visible to the list until the list grows.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static DoubleCollectionList wrap(double @NotNull [] values) {
+        return new DoubleCollectionList(values, values.length);
+    }
+
+    /**
+     * Creates the list from the numbers, using {@link Number#doubleValue()}.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static DoubleCollectionList from(@NotNull java.util.Collection<? extends Number> numbers) {
+        DoubleCollectionList list = new DoubleCollectionList(numbers.size());
+        for (Number number : numbers) list.add(number.doubleValue());
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, Math.max(10, values.length + (values.length >> 1))));
+        }
+    }
+
+    public double get(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Replaces the value at the index.
+     * @return the previous value
+     */
+    public double set(int index, double value) {
+        checkIndex(index);
+        double old = values[index];
+        values[index] = value;
+        return old;
+    }
+
+    public void add(double value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    public void add(int index, double value) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        ensureCapacity(size + 1);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    public void addAll(double @NotNull ... values) {
+        addAll(values, 0, values.length);
+    }
+
+    public void addAll(@NotNull DoubleCollectionList list) {
+        addAll(list.values, 0, list.size);
+    }
+
+    private void addAll(double @NotNull [] values, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(values, offset, this.values, size, length);
+        size += length;
+    }
+
+    /**
+     * Removes the value at the index.
+     * @return the removed value
+     */
+    public double removeAt(int index) {
+        checkIndex(index);
+        double old = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    /**
+     * Removes the values matching the filter.
+     * @return true if any value was removed
+     */
+    public boolean removeIf(@NotNull DoublePredicate filter) {
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test(values[i])) values[newSize++] = values[i];
+        }
+        boolean removed = newSize != size;
+        size = newSize;
+        return removed;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Shrinks the storage to the size of the list.
+     */
+    public void trimToSize() {
+        if (values.length != size) values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+    }
+
+    public int indexOf(double value) {
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(values[i], value) == 0) return i;
+        }
+        return -1;
+    }
+
+    public int lastIndexOf(double value) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (Double.compare(values[i], value) == 0) return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(double value) {
+        return indexOf(value) != -1;
+    }
+
+    /**
+     * Simple redirection to the {@link #contains(double)}.
+     */
+    public boolean includes(double value) {
+        return contains(value);
+    }
+
+    /**
+     * Returns the first value, or empty if the list is empty.
+     */
+    @NotNull
+    public OptionalDouble first() {
+        return size == 0 ? OptionalDouble.empty() : OptionalDouble.of(values[0]);
+    }
+
+    /**
+     * Returns the last value, or empty if the list is empty.
+     */
+    @NotNull
+    public OptionalDouble last() {
+        return size == 0 ? OptionalDouble.empty() : OptionalDouble.of(values[size - 1]);
+    }
+
+    /**
+     * Runs the action for each value, without boxing the values.
+     */
+    public void forEachDouble(@NotNull DoubleConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    /**
+     * Maps the values with the function.
+     * @param function Function that will run to create a new value.
+     * @return New list
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public DoubleCollectionList map(@NotNull DoubleUnaryOperator function) {
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = function.applyAsDouble(values[i]);
+        }
+        return new DoubleCollectionList(result, size);
+    }
+
+    /**
+     * Maps the values to the objects with the function.
+     * @param function Function that will run to create a new value.
+     * @return New list with new type.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public <T> CollectionList<T> mapToObj(@NotNull DoubleFunction<T> function) {
+        CollectionList<T> list = new CollectionList<>();
+        list.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            list.add(function.apply(values[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Filters values. If returned true, that value will be kept.
+     * @param filter filter function.
+     * @return New filtered list
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public DoubleCollectionList filter(@NotNull DoublePredicate filter) {
+        DoubleCollectionList list = new DoubleCollectionList();
+        for (int i = 0; i < size; i++) {
+            if (filter.test(values[i])) list.add(values[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Merges the values into the one.
+     * @param operator the function to be run, which receives the value previously returned and the value
+     * @param initialValue the initial value
+     */
+    public double reduce(@NotNull DoubleBinaryOperator operator, double initialValue) {
+        double result = initialValue;
+        for (int i = 0; i < size; i++) {
+            result = operator.applyAsDouble(result, values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sum of the values.
+     */
+    public double sum() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the average of the values, or empty if the list is empty.
+     */
+    @NotNull
+    public OptionalDouble average() {
+        return size == 0 ? OptionalDouble.empty() : OptionalDouble.of(sum() / size);
+    }
+
+    /**
+     * Sorts this list in the ascending order.
+     * @return this list
+     */
+    @Contract("-> this")
+    @NotNull
+    public DoubleCollectionList sorted() {
+        Arrays.sort(values, 0, size);
+        return this;
+    }
+
+    /**
+     * Returns the shuffled copy of this list.
+     * @return shuffled new list
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public DoubleCollectionList shuffle() {
+        DoubleCollectionList list = clone();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double tmp = list.values[i];
+            list.values[i] = list.values[j];
+            list.values[j] = tmp;
+        }
+        return list;
+    }
+
+    /**
+     * Returns the reversed copy of this list.
+     * @return Flipped list
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public DoubleCollectionList reverse() {
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = values[size - i - 1];
+        }
+        return new DoubleCollectionList(result, size);
+    }
+
+    /**
+     * Returns the values from the start.
+     * @see ICollectionList#slice(int)
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public DoubleCollectionList slice(int start) {
+        return slice(start, size);
+    }
+
+    /**
+     * Returns the values from the start to the end (end not included).
+     * @see ICollectionList#slice(int, int)
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    @NotNull
+    public DoubleCollectionList slice(int start, int end) {
+        int from = Math.max(0, Math.min(start, size));
+        int to = Math.max(from, Math.min(end, size));
+        return new DoubleCollectionList(Arrays.copyOfRange(values, from, to), to - from);
+    }
+
+    /**
+     * Joins the values with a comma.
+     */
+    @NotNull
+    public String join() {
+        return join(null);
+    }
+
+    /**
+     * Joins the values with the separator.
+     * @param s the separator, or null to use a comma
+     */
+    @NotNull
+    public String join(String s) {
+        String separator = s == null ? "," : s;
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i != 0) str.append(separator);
+            str.append(values[i]);
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns the copy of the values.
+     */
+    @Contract(value = "-> new", pure = true)
+    public double @NotNull [] toDoubleArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns the buffer sharing the storage of this list, without copying the values. The changes made to the
+     * buffer are visible to the list and vice versa, until the list grows.
+     */
+    @NotNull
+    public DoubleBuffer asDoubleBuffer() {
+        return DoubleBuffer.wrap(values, 0, size).slice();
+    }
+
+    @NotNull
+    public DoubleStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    /**
+     * Returns the values as the boxed list.
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public CollectionList<Double> boxed() {
+        return mapToObj(Double::valueOf);
+    }
+
+    @Override
+    public PrimitiveIterator.OfDouble iterator() {
+        return new PrimitiveIterator.OfDouble() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (index >= size) throw new NoSuchElementException();
+                return values[index++];
+            }
+        };
+    }
+
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @Override
+    public DoubleCollectionList clone() {
+        return new DoubleCollectionList(Arrays.copyOf(values, size), size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DoubleCollectionList)) return false;
+        DoubleCollectionList that = (DoubleCollectionList) o;
+        if (size != that.size) return false;
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(values[i], that.values[i]) != 0) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Double.hashCode(values[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + join(", ") + "]";
+    }
+}
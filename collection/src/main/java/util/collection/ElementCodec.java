@@ -0,0 +1,132 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Encodes and decodes the elements of the {@link FileBasedCollectionList} without using the Java serialization.
+ * When the codec is set, each chunk is written as the element count followed by the length-prefixed bytes of each
+ * element, and the elements don't have to implement {@link java.io.Serializable Serializable}.
+ * <p>The null elements are handled by the list, so the codec never receives null.
+ * <p>The {@link #getId() id} of the codec is written to the persistent files (see
+ * {@link FileBasedCollectionList.Builder#setPath(java.nio.file.Path)}), so the file can be reopened with the same
+ * codec. The codecs defined in this interface are found by their id when the file is reopened.
+ * @param <E> the element type
+ * @see FileBasedCollectionList.Builder#setCodec(ElementCodec)
+ */
+public interface ElementCodec<E> {
+    ElementCodec<String> STRING = of("string",
+            (s, out) -> out.write(s.getBytes(StandardCharsets.UTF_8)),
+            (in, length) -> {
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            });
+    ElementCodec<Integer> INTEGER = of("int", (i, out) -> out.writeInt(i), (in, length) -> in.readInt());
+    ElementCodec<Long> LONG = of("long", (l, out) -> out.writeLong(l), (in, length) -> in.readLong());
+    ElementCodec<Double> DOUBLE = of("double", (d, out) -> out.writeDouble(d), (in, length) -> in.readDouble());
+    ElementCodec<Float> FLOAT = of("float", (f, out) -> out.writeFloat(f), (in, length) -> in.readFloat());
+    ElementCodec<Short> SHORT = of("short", (s, out) -> out.writeShort(s), (in, length) -> in.readShort());
+    ElementCodec<Byte> BYTE = of("byte", (b, out) -> out.writeByte(b), (in, length) -> in.readByte());
+    ElementCodec<Character> CHARACTER = of("char", (c, out) -> out.writeChar(c), (in, length) -> in.readChar());
+    ElementCodec<Boolean> BOOLEAN = of("boolean", (b, out) -> out.writeBoolean(b), (in, length) -> in.readBoolean());
+    ElementCodec<UUID> UUID = of("uuid",
+            (uuid, out) -> {
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            },
+            (in, length) -> new UUID(in.readLong(), in.readLong()));
+    ElementCodec<byte[]> BYTE_ARRAY = of("byte[]",
+            (bytes, out) -> out.write(bytes),
+            (in, length) -> {
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                return bytes;
+            });
+
+    /**
+     * Writes the element.
+     * @param element the element to write
+     * @param out the output
+     * @throws IOException if an I/O error occurs
+     */
+    void encode(@NotNull E element, @NotNull DataOutput out) throws IOException;
+
+    /**
+     * Reads the element written by {@link #encode(Object, DataOutput)}.
+     * @param in the input
+     * @param length the number of bytes written by {@link #encode(Object, DataOutput)} for this element
+     * @return the element
+     * @throws IOException if an I/O error occurs
+     */
+    @NotNull
+    E decode(@NotNull DataInput in, int length) throws IOException;
+
+    /**
+     * Returns the id of this codec, which is written to the persistent files and checked when the file is reopened.
+     * The id should be changed when the format written by the codec changes.
+     * @return the id, or null if the codec has no id and the file can be reopened with any codec
+     */
+    @Nullable
+    default String getId() {
+        return null;
+    }
+
+    /**
+     * Creates a codec without the id from the encoder and the decoder.
+     * @param encoder the encoder
+     * @param decoder the decoder
+     * @return the codec
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    @NotNull
+    static <E> ElementCodec<E> of(@NotNull Encoder<E> encoder, @NotNull Decoder<E> decoder) {
+        return of(null, encoder, decoder);
+    }
+
+    /**
+     * Creates a codec from the encoder and the decoder.
+     * @param id the id of the codec
+     * @param encoder the encoder
+     * @param decoder the decoder
+     * @return the codec
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    @NotNull
+    static <E> ElementCodec<E> of(@Nullable String id, @NotNull Encoder<E> encoder, @NotNull Decoder<E> decoder) {
+        return new ElementCodec<E>() {
+            @Override
+            public @Nullable String getId() {
+                return id;
+            }
+
+            @Override
+            public void encode(@NotNull E element, @NotNull DataOutput out) throws IOException {
+                encoder.encode(element, out);
+            }
+
+            @Override
+            public @NotNull E decode(@NotNull DataInput in, int length) throws IOException {
+                return decoder.decode(in, length);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface Encoder<E> {
+        void encode(@NotNull E element, @NotNull DataOutput out) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Decoder<E> {
+        @NotNull
+        E decode(@NotNull DataInput in, int length) throws IOException;
+    }
+}
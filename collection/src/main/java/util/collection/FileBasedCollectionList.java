@@ -3,33 +3,75 @@
 
 package util.collection;
 
+import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
-import org.xerial.snappy.SnappyInputStream;
-import org.xerial.snappy.SnappyOutputStream;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 /**
  * This list is almost same as {@link CollectionList CollectionList},
@@ -38,9 +80,13 @@ import java.util.stream.Collectors;
  * the HUGE entries (for example, 10 million of large data) into the list. The list data
  * will be saved at the tmp directory and will be removed when VM exits or the
  * {@link #close()} was called.
+ * <p>If the path is set with {@link Builder#setPath(Path)}, the list data is kept in that file instead, and the file
+ * can be reopened by {@link #open(Path)} after {@link #close()} or {@link #persist()} was called.
+ * <p>The elements are written with the Java serialization and must implement {@link Serializable}, unless an
+ * {@link ElementCodec} is set with {@link Builder#setCodec(ElementCodec)}.
  */
 @SuppressWarnings({ "ConstantConditions", "unused", "RedundantSuppression", "unchecked" })
-public class FileBasedCollectionList<E extends Serializable> extends AbstractCollectionList<E> implements ICollectionList<E>, AutoCloseable {
+public class FileBasedCollectionList<E> extends AbstractCollectionList<E> implements ICollectionList<E>, AutoCloseable {
     /**
      * Keeps track of the number of elements in this collection.
      */
@@ -63,8 +109,74 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
 
     protected Store<E> store;
 
+    /**
+     * Closes this list on the JVM shutdown, if {@link #close()} was not called. It is removed by {@link #close()},
+     * so the closed lists are not kept reachable by the hook.
+     */
+    private final Thread shutdownHook = new Thread(this::close, "FileBasedCollectionList-Shutdown");
+
+    /**
+     * The backend used to write and read the chunks.
+     */
+    protected StoreType storeType;
+
+    /**
+     * The codec used to write the elements, or null if the Java serialization is used.
+     */
+    @Nullable
+    protected ElementCodec<E> codec;
+
+    /**
+     * The number of full chunks that can wait for the background writer, or 0 if the chunks are written by the
+     * thread calling {@link #add(Object)}.
+     */
+    protected int writeBehindQueueSize;
+
+    /**
+     * The number of chunks that the iterators read ahead on a helper thread, or 0 if the iterators read the chunks
+     * on the calling thread.
+     */
+    protected int prefetchDepth;
+
+    /**
+     * The file that the list is persisted to, or null if the list is written to a temporary file.
+     */
+    @Nullable
+    protected Path path;
+
+    /**
+     * The directory of the temporary files, or null to use <code>java.io.tmpdir</code>.
+     */
+    @Nullable
+    protected Path directory;
+
+    /**
+     * The chunks are rewritten without the removed elements when the ratio of their live elements drops below this.
+     */
+    protected double compactionThreshold;
+
+    /**
+     * The number of the bits per element of the Bloom filter of each chunk, or 0 if the chunks have no Bloom filter.
+     */
+    protected int bloomFilterBits;
+
+    /**
+     * The compression of the chunks.
+     */
+    protected Compression compression;
+
     private static final int CHUNK_SIZE = 100;
 
+    /**
+     * The number of decoded chunks kept in the memory for {@link #get(int)} and {@link #set(int, Object)}.
+     */
+    private static final int CHUNK_CACHE_SIZE = 4;
+
+    /**
+     * The minimum number of elements sorted in the memory at once by {@link #sort()}.
+     */
+    private static final int SORT_BUCKET_SIZE = 65536;
+
     @SafeVarargs
     public FileBasedCollectionList(E... e) {
         this(CHUNK_SIZE);
@@ -94,8 +206,36 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
      * @param chunkSize The size of each chunk.
      */
     public FileBasedCollectionList(int chunkSize) {
-        this.store = new Store<>();
-        this.chunkSize = chunkSize;
+        this(chunkSize, StoreType.FILE_CHANNEL);
+    }
+
+    /**
+     * Constructor to set the chunk size and the store backend to a custom value.
+     *
+     * @param chunkSize The size of each chunk.
+     * @param storeType The backend used to write and read the chunks.
+     */
+    public FileBasedCollectionList(int chunkSize, @NotNull StoreType storeType) {
+        this(new Builder<E>().setChunkSize(chunkSize).setStoreType(storeType));
+    }
+
+    protected FileBasedCollectionList(@NotNull Builder<E> builder) {
+        this(builder, Store.create(builder));
+    }
+
+    private FileBasedCollectionList(@NotNull Builder<E> builder, @NotNull Store<E> store) {
+        this.store = store;
+        this.chunkSize = store.chunkSize;
+        this.storeType = builder.storeType;
+        this.codec = store.codec;
+        this.writeBehindQueueSize = builder.writeBehindQueueSize;
+        this.prefetchDepth = builder.prefetchDepth;
+        this.compactionThreshold = builder.compactionThreshold;
+        this.bloomFilterBits = store.bloomFilterBits;
+        this.compression = store.compression;
+        this.path = builder.path;
+        this.directory = builder.directory;
+        this.size = store.getElementCount();
         this.currentChunk = new ArrayList<>();
 
         /*
@@ -105,46 +245,456 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
          *  the close() method should be called by the application, but if that fails, the
          *  shutdown hook is there as last rescue
          */
-        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
     }
 
     /**
      * Call this method to shutdown the file streams orderly after the collection isn't needed anymore.
      * The FileBasedCollection on which this method is called is unusable afterwards.
+     * <p>If the list is persistent, the remaining elements and the footer are written to the file before closing it.
      */
     @Override
     public synchronized void close() {
         if (store != null) {
-            store.close();
-            store = null;
-            currentChunk = null;
+            try {
+                if (path != null) flush();
+                store.close();
+            } finally {
+                store = null;
+                currentChunk = null;
+                removeShutdownHook();
+            }
+        }
+    }
+
+    private void removeShutdownHook() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+            // the JVM is shutting down, and this may be called by the hook itself
         }
     }
 
+    /**
+     * Writes the elements added so far and the footer to the file of the persistent list, so the file can be reopened
+     * by {@link #open(Path)} even if the process dies before {@link #close()} is called. Each call appends a new
+     * footer of at least 20 bytes per chunk, so this should be called at checkpoints rather than after each element.
+     * If less than half of the file is the content of the chunks (because the chunks were rewritten by
+     * {@link #set(int, Object)}, {@link #remove(int)} or {@link #compact()}), the chunks are copied to a new file
+     * which replaces the file.
+     * @throws IllegalStateException if the list is not persistent
+     */
+    public void persist() {
+        if (path == null) throw new IllegalStateException("The list is not persistent");
+        flush();
+        store.persist();
+    }
+
     public int getChunkSize() {
         return this.chunkSize;
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    public <V extends Serializable & Comparable<V>> void sort(int bucketSize) throws IOException {
-        FileBasedCollectionList<E> sorted = new FileBasedCollectionSorter().sort((FileBasedCollectionList) FileBasedCollectionList.this, bucketSize, chunkSize);
-        swap(sorted);
+    @NotNull
+    public StoreType getStoreType() {
+        return this.storeType;
+    }
+
+    @Nullable
+    public ElementCodec<E> getCodec() {
+        return this.codec;
+    }
+
+    public int getWriteBehindQueueSize() {
+        return this.writeBehindQueueSize;
+    }
+
+    public int getPrefetchDepth() {
+        return this.prefetchDepth;
+    }
+
+    public double getCompactionThreshold() {
+        return this.compactionThreshold;
+    }
+
+    public int getBloomFilterBits() {
+        return this.bloomFilterBits;
+    }
+
+    @NotNull
+    public Compression getCompression() {
+        return this.compression;
+    }
+
+    /**
+     * Returns the number of the bytes compressed and uncompressed by this list, and the time spent on it.
+     */
+    @NotNull
+    public CompressionStats getCompressionStats() {
+        return store.getCompressionStats();
+    }
+
+    @Nullable
+    public Path getPath() {
+        return this.path;
+    }
+
+    @Nullable
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Creates a builder with the same settings as this list, except the path. If this list is persistent and the
+     * directory is not set, the temporary files of the new list are created next to the file of this list.
+     */
+    @NotNull
+    public Builder<E> toBuilder() {
+        return this.<E>newBuilder().setCodec(codec);
+    }
+
+    /**
+     * Creates a builder with the settings of this list which don't depend on the element type.
+     */
+    private <T> Builder<T> newBuilder() {
+        return new Builder<T>()
+                .setChunkSize(chunkSize)
+                .setStoreType(storeType)
+                .setWriteBehindQueueSize(writeBehindQueueSize)
+                .setPrefetchDepth(prefetchDepth)
+                .setCompactionThreshold(compactionThreshold)
+                .setBloomFilterBits(bloomFilterBits)
+                .setCompression(compression)
+                .setDirectory(directory != null || path == null ? directory : path.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Sorts the list in the natural order of the elements.
+     * @param bucketSize the number of elements sorted in the memory at once
+     * @see #sort(int, Comparator, ForkJoinPool)
+     */
+    public void sort(int bucketSize) throws IOException {
+        sort(bucketSize, null);
+    }
+
+    /**
+     * Sorts the list on the {@link ForkJoinPool#commonPool() common pool}.
+     * @param bucketSize the number of elements sorted in the memory at once
+     * @param comparator the comparator, or null to use the natural order of the elements
+     * @see #sort(int, Comparator, ForkJoinPool)
+     */
+    public void sort(int bucketSize, @Nullable Comparator<? super E> comparator) throws IOException {
+        sort(bucketSize, comparator, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Sorts the list with the external merge sort. The list is split into runs of <code>bucketSize</code> elements,
+     * the runs are sorted and written to the disk in parallel on the pool, and the sorted runs are merged with a
+     * k-way heap. The sort is stable, and up to <code>pool.getParallelism() + 1</code> runs are held in the memory at
+     * once.
+     * @param bucketSize the number of elements sorted in the memory at once
+     * @param comparator the comparator, or null to use the natural order of the elements
+     * @param pool the pool to sort the runs on
+     */
+    public void sort(int bucketSize, @Nullable Comparator<? super E> comparator, @NotNull ForkJoinPool pool) throws IOException {
+        if (bucketSize <= 0) throw new IllegalArgumentException("bucketSize must be positive");
+        FileBasedCollectionList<E> sorted = new FileBasedCollectionSorter<>(this, bucketSize, comparator, pool).sort();
+        if (sorted != this) swap(sorted);
     }
 
     public void sort() throws IOException {
-        sort(10 * chunkSize);
+        sort(getDefaultBucketSize());
+    }
+
+    /**
+     * Sorts the list with {@link #sort(int, Comparator)} and the default bucket size.
+     */
+    @Override
+    public void sort(@Nullable Comparator<? super E> c) {
+        try {
+            sort(getDefaultBucketSize(), c);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sorts the list with {@link #sort(int, Comparator, ForkJoinPool)} on the pool of the parallelism, so the list is
+     * not copied into the memory. The threshold is not used.
+     */
+    @Override
+    public @NotNull FileBasedCollectionList<E> parallelSorted(@NotNull Parallelism parallelism, @NotNull Comparator<? super E> comparator) {
+        try {
+            sort(getDefaultBucketSize(), comparator, parallelism.getPool());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Reduces the list with the parallel stream of the {@link #spliterator() chunk spliterator} on the pool of the
+     * parallelism, so only the chunks being read are held in the memory. The threshold is not used.
+     */
+    @Override
+    public <U> U parallelReduce(@NotNull Parallelism parallelism, @Nullable U identity, @NotNull BiFunction<U, E, U> accumulator, @NotNull BinaryOperator<U> combiner) {
+        return parallelism.getPool().submit(() -> StreamSupport.stream(spliterator(), true).reduce(identity, accumulator, combiner)).join();
+    }
+
+    private int getDefaultBucketSize() {
+        return Math.max(10 * chunkSize, SORT_BUCKET_SIZE);
+    }
+
+    /**
+     * Returns the list without the duplicate elements, with {@link #distinct()}.
+     */
+    @Override
+    public @NotNull FileBasedCollectionList<E> unique() {
+        return distinct();
+    }
+
+    /**
+     * Returns the list without the duplicate elements, splitting this list into partitions of about
+     * <code>max(10 * chunkSize, 65536)</code> elements.
+     * @see #distinct(int)
+     */
+    @Contract("-> new")
+    @NotNull
+    public FileBasedCollectionList<E> distinct() {
+        return distinct(getDefaultPartitionCount());
+    }
+
+    /**
+     * Returns the list without the duplicate elements. The elements are split by their hash code into the partitions
+     * written to the disk, so the equal elements are in the same partition, and the partitions are deduplicated in
+     * the memory one by one. Only one partition (and a chunk of each partition while splitting) is held in the
+     * memory at once. The elements are ordered by the partition, and by the first occurrence in this list within the
+     * partition.
+     * @param partitions the number of the partitions
+     * @return the new list
+     */
+    @Contract("_ -> new")
+    @NotNull
+    public FileBasedCollectionList<E> distinct(int partitions) {
+        FileBasedCollectionList<E> result = toBuilder().build();
+        forEachPartition(Function.identity(), partitions, partition -> {
+            Set<E> unique = new LinkedHashSet<>();
+            partition.forEach(unique::add);
+            result.addAll(unique);
+        });
+        return result;
+    }
+
+    /**
+     * Groups the elements by the key into the lists.
+     * @see #groupBy(Function, Collector, int)
+     */
+    @Contract("_ -> new")
+    @NotNull
+    public <K> FileBasedCollectionList<Map.Entry<K, List<E>>> groupBy(@NotNull Function<? super E, ? extends K> keyFunction) {
+        return groupBy(keyFunction, Collectors.toList());
+    }
+
+    /**
+     * Groups the elements by the key and reduces each group with the collector.
+     * @see #groupBy(Function, Collector, int)
+     */
+    @Contract("_, _ -> new")
+    @NotNull
+    public <K, A, R> FileBasedCollectionList<Map.Entry<K, R>> groupBy(@NotNull Function<? super E, ? extends K> keyFunction, @NotNull Collector<? super E, A, R> downstream) {
+        return groupBy(keyFunction, downstream, getDefaultPartitionCount());
+    }
+
+    /**
+     * Groups the elements by the key and reduces each group with the collector, like
+     * {@link Collectors#groupingBy(Function, Collector)}. The elements are split by the hash code of their key into the
+     * partitions written to the disk, so all elements of a group are in the same partition, and the groups of each
+     * partition are collected in the memory one by one. Only the groups of one partition are held in the memory at
+     * once, so the groups should be reduced by the collector (for example, with {@link Collectors#counting()}) if
+     * they are large. The entries are written with the Java serialization, so the keys and the results must
+     * implement {@link Serializable}.
+     * @param keyFunction the function returning the key of the element
+     * @param downstream the collector reducing the elements of a group
+     * @param partitions the number of the partitions
+     * @return the new list of the keys and the results of the collector, ordered by the partition, and by the first
+     *         occurrence of the key in this list within the partition
+     */
+    @Contract("_, _, _ -> new")
+    @NotNull
+    public <K, A, R> FileBasedCollectionList<Map.Entry<K, R>> groupBy(@NotNull Function<? super E, ? extends K> keyFunction, @NotNull Collector<? super E, A, R> downstream, int partitions) {
+        FileBasedCollectionList<Map.Entry<K, R>> result = this.<Map.Entry<K, R>>newBuilder().build();
+        forEachPartition(keyFunction, partitions, partition -> {
+            Map<K, A> groups = new LinkedHashMap<>();
+            for (E e : partition) {
+                downstream.accumulator().accept(groups.computeIfAbsent(keyFunction.apply(e), k -> downstream.supplier().get()), e);
+            }
+            groups.forEach((key, container) -> result.add(new AbstractMap.SimpleImmutableEntry<>(key, downstream.finisher().apply(container))));
+        });
+        return result;
+    }
+
+    private int getDefaultPartitionCount() {
+        int bucketSize = getDefaultBucketSize();
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (size + bucketSize - 1) / bucketSize));
+    }
+
+    /**
+     * Splits the elements into the partitions by the hash code of the key, and passes each partition to the action.
+     * If there is only one partition, this list is passed as is.
+     */
+    private void forEachPartition(Function<? super E, ?> keyFunction, int partitions, Consumer<FileBasedCollectionList<E>> action) {
+        if (partitions <= 0) throw new IllegalArgumentException("partitions must be positive");
+        if (partitions == 1) {
+            action.accept(this);
+            return;
+        }
+        List<FileBasedCollectionList<E>> lists = new ArrayList<>(partitions);
+        try {
+            for (int i = 0; i < partitions; i++) {
+                lists.add(toBuilder().setWriteBehindQueueSize(0).setBloomFilterBits(0).build());
+            }
+            try (FileBasedIterator<E> it = iterator()) {
+                while (it.hasNext()) {
+                    E e = it.next();
+                    // the high bits of the hash code, as the hash maps in the partition use the low bits
+                    long hash = Objects.hashCode(keyFunction.apply(e)) * 0x9E3779B97F4A7C15L;
+                    lists.get((int) ((hash >>> 32) % partitions)).add(e);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            for (int i = 0; i < partitions; i++) {
+                action.accept(lists.get(i));
+                lists.get(i).close();
+            }
+        } finally {
+            lists.forEach(FileBasedCollectionList::close);
+        }
     }
 
     /**
      * The iterator always starts at the first element of the collection.
+     * The iterator reads ahead the number of chunks specified by {@link Builder#setPrefetchDepth(int)}.
      */
     @Override
     public @NotNull FileBasedIterator<E> iterator() {
+        return iterator(prefetchDepth);
+    }
+
+    /**
+     * The iterator always starts at the first element of the collection.
+     * @param prefetchDepth the number of chunks to read and deserialize on a helper thread while the caller processes
+     *                      the current chunk, or 0 to read the chunks on the calling thread
+     */
+    public @NotNull FileBasedIterator<E> iterator(int prefetchDepth) {
+        if (prefetchDepth < 0) throw new IllegalArgumentException("prefetchDepth cannot be negative");
         // if there is a non-empty chunk that is not cached yet, then put it in the cache before iteration starts
         if(!currentChunk.isEmpty()) {
             flush();
         }
-        return new FileBasedIterator<>(store.getReader());
+        return new FileBasedIterator<>(store.getReader(prefetchDepth));
+    }
+
+    /**
+     * Returns the spliterator that splits the list on the chunk boundaries, so the chunks are read and deserialized
+     * by the threads processing them, and the list is never loaded into the memory at once. The spliterator reports
+     * {@link Spliterator#SIZED SIZED} and {@link Spliterator#SUBSIZED SUBSIZED}, so
+     * <code>stream().parallel()</code> splits the list evenly.
+     */
+    @Override
+    public @NotNull Spliterator<E> spliterator() {
+        if(!currentChunk.isEmpty()) {
+            flush();
+        }
+        return new ChunkSpliterator<>(store, null, 0, 0, store.getChunkCount());
+    }
+
+    /**
+     * Returns the new list with the elements in the reverse order. The chunks are read from the last chunk, each
+     * chunk once, and the elements are written to the new list in order.
+     */
+    @Override
+    public @NotNull FileBasedCollectionList<E> reverse() {
+        FileBasedCollectionList<E> reversed = newList();
+        for (int i = currentChunk.size() - 1; i >= 0; i--) reversed.add(currentChunk.get(i));
+        for (int chunk = store.getChunkCount() - 1; chunk >= 0; chunk--) {
+            ArrayList<E> elements = store.readChunk(chunk);
+            for (int i = elements.size() - 1; i >= 0; i--) reversed.add(elements.get(i));
+        }
+        return reversed;
+    }
+
+    /**
+     * Returns the new list with the elements shuffled, without holding more than about the default sort bucket size
+     * of the elements in the memory. The elements are scattered to the temporary lists at random, and each temporary
+     * list is shuffled in the memory and appended to the new list, so every permutation is equally likely and each
+     * element is written twice.
+     */
+    @Override
+    public @NotNull FileBasedCollectionList<E> shuffle() {
+        Random random = new Random();
+        int bucketSize = getDefaultBucketSize();
+        int buckets = (int) Math.max(1, (getRealSize() + bucketSize - 1) / bucketSize);
+        FileBasedCollectionList<E> shuffled = newList();
+        List<FileBasedCollectionList<E>> scattered = new ArrayList<>(buckets);
+        try {
+            if (buckets == 1) {
+                shuffled.addAll(shuffle(toList(), random));
+                return shuffled;
+            }
+            for (int i = 0; i < buckets; i++) scattered.add(newList());
+            try (FileBasedIterator<E> it = iterator()) {
+                while (it.hasNext()) scattered.get(random.nextInt(buckets)).add(it.next());
+            }
+            for (FileBasedCollectionList<E> bucket : scattered) {
+                shuffled.addAll(shuffle(bucket.toList(), random));
+                bucket.close();
+            }
+        } catch (IOException e) {
+            shuffled.close();
+            throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            shuffled.close();
+            throw e;
+        } finally {
+            scattered.forEach(FileBasedCollectionList::close);
+        }
+        return shuffled;
+    }
+
+    private static <E> List<E> shuffle(List<E> elements, Random random) {
+        Collections.shuffle(elements, random);
+        return elements;
+    }
+
+    /**
+     * Returns the lazy view of the batches of this list, which reads the chunks in order with the
+     * {@link #spliterator() chunk spliterator}, each chunk once. Each batch is a new list, and nothing has to be
+     * closed when the iteration stops early.
+     * <p>The batches are aligned with the chunks when the size is a multiple of {@link #getChunkSize()} (and no
+     * element was removed).
+     * @see #batchIterator(int)
+     */
+    @Override
+    public @NotNull CollectionView<List<E>> batches(int size) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+        return CollectionView.of(() -> Batches.batchesUntil(Spliterators.iterator(spliterator()), size, Long.MAX_VALUE));
+    }
+
+    /**
+     * Returns the iterator of the batches of this list. Unlike {@link #batches(int)}, the batches are the same list,
+     * which is cleared and refilled for each batch, so the iteration doesn't allocate per batch, but a batch must be
+     * copied to keep it after the next batch is read. The chunks are read ahead as specified by
+     * {@link Builder#setPrefetchDepth(int)}. The iterator always starts at the first element of the collection, and
+     * should be closed if it is not read to the end.
+     * @param size the number of the elements in each batch
+     * @see #batches(int)
+     */
+    public @NotNull BatchIterator<E> batchIterator(int size) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+        if(!currentChunk.isEmpty()) {
+            flush();
+        }
+        return new BatchIterator<>(store.getReader(prefetchDepth), size);
     }
 
     /**
@@ -163,9 +713,7 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
     public long getRealSize() { return size; }
 
     /**
-     * The removeAll is implemented as a copy operation. All items in this collection not
-     * in the provided collection c, are copied to a new collection. The cache of the current
-     * collection is replaced with the cache of the new collection.
+     * The removed elements are marked in their chunks without rewriting the chunks, see {@link #remove(int)}.
      */
     @Override
     public boolean removeAll(@NotNull Collection<?> c) {
@@ -180,27 +728,24 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
         return retainAll(condition);
     }
 
+    /**
+     * Reads the chunks until the element is found, skipping the chunks whose
+     * {@link Builder#setBloomFilterBits(int) Bloom filter} rules out the element.
+     */
     @Override
     public boolean contains(Object o) {
-        try (FileBasedIterator<E> it = iterator()) {
-            if (o == null) {
-                while (it.hasNext())
-                    if (it.next() == null) return true;
-            } else {
-                while (it.hasNext())
-                    if (o.equals(it.next()))
-                        return true;
+        if (currentChunk.contains(o)) return true;
+        int hash = Objects.hashCode(o);
+        try (ChunkReader<E> reader = store.getReader(prefetchDepth, chunk -> store.mightContain(chunk, hash))) {
+            for (Optional<ArrayList<E>> elements = reader.readChunk(); elements.isPresent(); elements = reader.readChunk()) {
+                if (elements.get().contains(o)) return true;
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
         return false;
     }
 
     /**
-     * The retainAll is implemented as a copy operation. All items in this collection also
-     * in the provided collection c, are copied to a new collection. The cache of the current
-     * collection is replaced with the cache of the new collection.
+     * The removed elements are marked in their chunks without rewriting the chunks, see {@link #remove(int)}.
      */
     @Override
     public boolean retainAll(@NotNull Collection<?> c) {
@@ -215,24 +760,33 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
         return retainAll(condition);
     }
 
-    private boolean retainAll(Predicate<E> condition) {
-        FileBasedCollectionList<E> modifiedCollection = new FileBasedCollectionList<>(chunkSize);
+    /**
+     * The removed elements are marked in their chunks without rewriting the chunks, see {@link #remove(int)}.
+     */
+    @Override
+    public boolean removeIf(@NotNull Predicate<? super E> filter) {
+        return retainAll(e -> !filter.test(e));
+    }
 
-        try(FileBasedIterator<E> iter = iterator()) {
-            while(iter.hasNext()) {
-                E next = iter.next();
-                if(condition.test(next)) {
-                    modifiedCollection.add(next);
+    private boolean retainAll(Predicate<E> condition) {
+        long oldSize = size;
+        try (ChunkReader<E> reader = store.getReader(prefetchDepth)) {
+            int chunk = 0;
+            for (Optional<ArrayList<E>> elements = reader.readChunk(); elements.isPresent(); elements = reader.readChunk(), chunk++) {
+                BitSet removed = new BitSet();
+                for (int i = 0; i < elements.get().size(); i++) {
+                    if (!condition.test(elements.get().get(i))) removed.set(i);
+                }
+                if (!removed.isEmpty()) {
+                    store.remove(chunk, removed, compactionThreshold);
+                    size -= removed.cardinality();
                 }
             }
-        } catch (IOException e) {
-            close();
-            modifiedCollection.close();
-            throw new RuntimeException(e);
         }
-        boolean isModified = modifiedCollection.getRealSize() < size;
-        swap(modifiedCollection);
-        return isModified;
+        int currentSize = currentChunk.size();
+        currentChunk.removeIf(condition.negate());
+        size -= currentSize - currentChunk.size();
+        return size < oldSize;
     }
 
     @Override
@@ -241,7 +795,7 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
     }
 
     /**
-     * This method calls {@link #add(Serializable)} with an addition parameter size to
+     * This method calls {@link #add(Object)} with an addition parameter size to
      * specify the size of the element that is added.
      */
     public boolean add(E e, int size) {
@@ -286,11 +840,13 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
     public Object[] toArray() { return ICollectionList.toArray(this); }
 
     @Override
-    public @NotNull FileBasedCollectionList<E> newList() { return new FileBasedCollectionList<>(); }
+    public @NotNull FileBasedCollectionList<E> newList() { return toBuilder().build(); }
 
     @Override
     public @NotNull FileBasedCollectionList<E> newList(Collection<? extends E> list) {
-        return new FileBasedCollectionList<>(list);
+        FileBasedCollectionList<E> newList = newList();
+        newList.addAll(list);
+        return newList;
     }
 
     @SuppressWarnings("unchecked")
@@ -301,27 +857,72 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
 
     @Override
     public boolean remove(Object o) {
-        throw new UnsupportedOperationException("remove");
+        int index = indexOf(o);
+        if (index < 0) return false;
+        remove(index);
+        return true;
     }
 
+    /**
+     * Reads the chunks once for all elements of the collection, until all of them are found. The chunks whose
+     * {@link Builder#setBloomFilterBits(int) Bloom filter} rules out all the remaining elements are skipped.
+     */
     @Override
     public boolean containsAll(@NotNull Collection<?> c) {
-        return c.stream().filter(this::contains).count() == c.size();
+        Set<Object> remaining = new HashSet<>(c);
+        currentChunk.forEach(remaining::remove);
+        if (remaining.isEmpty()) return true;
+        IntPredicate filter = chunk -> {
+            for (Object o : remaining) {
+                if (store.mightContain(chunk, Objects.hashCode(o))) return true;
+            }
+            return false;
+        };
+        try (ChunkReader<E> reader = store.getReader(prefetchDepth, filter)) {
+            for (Optional<ArrayList<E>> elements = reader.readChunk(); elements.isPresent(); elements = reader.readChunk()) {
+                elements.get().forEach(remaining::remove);
+                if (remaining.isEmpty()) return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public void clear() {
-        swap(new FileBasedCollectionList<>(chunkSize));
+        swap(toBuilder().build());
     }
 
+    /**
+     * Returns the element at the specified position. Only the chunk containing the element is read (and decompressed)
+     * from the disk, and recently read chunks are kept in a small cache so neighbouring reads are served from the
+     * memory.
+     */
     @Override
     public E get(int index) {
-        throw new UnsupportedOperationException();
+        checkIndex(index);
+        long flushed = store.getElementCount();
+        if (index >= flushed) {
+            return currentChunk.get((int) (index - flushed));
+        }
+        int chunk = store.findChunk(index);
+        return store.getChunk(chunk).get((int) (index - store.getChunkStart(chunk)));
     }
 
+    /**
+     * Replaces the element at the specified position. If the element was already written to the disk, the chunk
+     * containing the element is kept in the memory, and is rewritten once when an element of another chunk is
+     * replaced, or when the list is flushed, persisted or modified otherwise. So replacing the elements in order (like
+     * {@link java.util.ListIterator#set(Object)} or {@link Collections#shuffle(List)}) rewrites each chunk once.
+     */
     @Override
     public E set(int index, E element) {
-        throw new UnsupportedOperationException();
+        checkIndex(index);
+        long flushed = store.getElementCount();
+        if (index >= flushed) {
+            return currentChunk.set((int) (index - flushed), element);
+        }
+        int chunk = store.findChunk(index);
+        return store.set(chunk, (int) (index - store.getChunkStart(chunk)), element);
     }
 
     @Override
@@ -329,26 +930,98 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Removes the element at the specified position. If the element was already written to the disk, the element is
+     * only marked as removed in its chunk, and the chunk is rewritten without the removed elements when the ratio of
+     * its live elements drops below the {@link Builder#setCompactionThreshold(double) compaction threshold}.
+     */
     @Override
     public E remove(int index) {
-        throw new UnsupportedOperationException();
+        checkIndex(index);
+        long flushed = store.getElementCount();
+        E removed;
+        if (index >= flushed) {
+            removed = currentChunk.remove((int) (index - flushed));
+        } else {
+            int chunk = store.findChunk(index);
+            int position = (int) (index - store.getChunkStart(chunk));
+            removed = store.getChunk(chunk).get(position);
+            BitSet positions = new BitSet();
+            positions.set(position);
+            store.remove(chunk, positions, compactionThreshold);
+        }
+        size--;
+        return removed;
     }
 
-    @Override
-    public int indexOf(Object o) {
-        throw new UnsupportedOperationException();
+    /**
+     * Rewrites all chunks containing removed elements.
+     * @see #compact(double)
+     */
+    public void compact() {
+        compact(1);
     }
 
-    @Override
+    /**
+     * Rewrites the chunks whose ratio of the live elements is below the threshold, without the removed elements. The
+     * other chunks are not read. If the list is not persistent and the ratio of the live bytes in the file is below
+     * the threshold too, the chunks are copied to a new file without the old content of the rewritten chunks. The file
+     * of the persistent list is shrunk by {@link #persist()} instead.
+     * @param threshold the ratio of the live elements, from 0 to 1
+     */
+    public void compact(double threshold) {
+        if (!(threshold >= 0 && threshold <= 1)) throw new IllegalArgumentException("threshold must be between 0 and 1");
+        store.compact(threshold);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int index = 0;
+        try (FileBasedIterator<E> it = iterator()) {
+            while (it.hasNext()) {
+                if (Objects.equals(o, it.next())) return index;
+                index++;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return -1;
+    }
+
+    /**
+     * Searches the element from the end of the list. The chunks are read in the reverse order using the chunk index,
+     * so the chunks after the last occurrence are the only chunks that will be read.
+     */
+    @Override
     public int lastIndexOf(Object o) {
-        throw new UnsupportedOperationException();
+        long flushed = store.getElementCount();
+        for (int i = currentChunk.size() - 1; i >= 0; i--) {
+            if (Objects.equals(o, currentChunk.get(i))) return (int) (flushed + i);
+        }
+        for (int chunk = store.getChunkCount() - 1; chunk >= 0; chunk--) {
+            ArrayList<E> elements = store.readChunk(chunk);
+            for (int i = elements.size() - 1; i >= 0; i--) {
+                if (Objects.equals(o, elements.get(i))) return (int) (store.getChunkStart(chunk) + i);
+            }
+        }
+        return -1;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
     }
 
     /**
-     * Flush writes the current chunk to disk and creates a new, empty chunk.
+     * Flush writes the current chunk to disk and creates a new, empty chunk. The chunk whose elements were replaced by
+     * {@link #set(int, Object)} is written too.
      * The FileBasedCollection is not thread-safe so calling this could interfere with add(E).
+     * If the write-behind is enabled, the chunk is handed to the background writer and this method returns before
+     * the chunk is written, unless the queue of the writer is full.
      */
     public void flush() {
+        store.writeDirty();
         if(!currentChunk.isEmpty()) {
             store.write(currentChunk);
             currentChunk = new ArrayList<>(chunkSize);
@@ -356,16 +1029,91 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
         }
     }
 
+    /**
+     * Replaces the content of this list with the other list, which must not be used afterwards. If this list is
+     * persistent, the file of the other list is moved to the path of this list.
+     */
     private void swap(FileBasedCollectionList<E> other) {
-        close();
+        if (path != null && store != null) {
+            store.discard();
+            store = null;
+            other.store.moveTo(path.toFile());
+        } else if (store != null) {
+            // this list stays open, so its shutdown hook is kept
+            store.close();
+        }
         this.store = other.store;
         this.currentChunk = other.currentChunk;
         this.size = other.size;
         this.chunkSize = other.chunkSize;
+        this.storeType = other.storeType;
+        this.codec = other.codec;
+        this.writeBehindQueueSize = other.writeBehindQueueSize;
+        this.prefetchDepth = other.prefetchDepth;
+        this.compactionThreshold = other.compactionThreshold;
+        this.bloomFilterBits = other.bloomFilterBits;
+        this.compression = other.compression;
+        // the store is owned by this list now, so closing the other list must not close it
+        other.store = null;
+        other.currentChunk = null;
+        other.removeShutdownHook();
+    }
+
+    /**
+     * The iterator of the batches returned by {@link #batchIterator(int)}. {@link #next()} returns the same list for
+     * each batch. The chunk reader is closed when the last batch is read.
+     */
+    public static class BatchIterator<E> implements Iterator<List<E>>, Closeable {
+        private final ChunkReader<E> reader;
+        private final int size;
+        private final ArrayList<E> batch;
+
+        private ArrayList<E> chunk = new ArrayList<>();
+        private int position = 0;
+        private boolean finished = false;
+
+        BatchIterator(ChunkReader<E> reader, int size) {
+            this.reader = reader;
+            this.size = size;
+            this.batch = new ArrayList<>(Math.min(size, 1 << 16));
+        }
+
+        @Override
+        public boolean hasNext() {
+            // the chunks whose elements were all removed are empty
+            while (position >= chunk.size() && !finished) {
+                Optional<ArrayList<E>> next = reader.readChunk();
+                if (next.isPresent()) {
+                    chunk = next.get();
+                } else {
+                    chunk = new ArrayList<>();
+                    finished = true;
+                    reader.close();
+                }
+                position = 0;
+            }
+            return position < chunk.size();
+        }
+
+        @Override
+        public List<E> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            batch.clear();
+            while (batch.size() < size && hasNext()) {
+                int end = Math.min(chunk.size(), position + size - batch.size());
+                for (; position < end; position++) batch.add(chunk.get(position));
+            }
+            return batch;
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
     }
 
     @SuppressWarnings("RedundantOperationOnEmptyContainer")
-    public static class FileBasedIterator<E extends Serializable> implements Iterator<E>, Closeable {
+    public static class FileBasedIterator<E> implements Iterator<E>, Closeable {
         private final ChunkReader<E> reader;
 
         private ArrayList<E> currentChunk = new ArrayList<>();
@@ -378,7 +1126,8 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
 
         @Override
         public boolean hasNext() {
-            if (isCurrentChunkExhausted() && !isFinished()) {
+            // the chunks whose elements were all removed are empty
+            while (isCurrentChunkExhausted() && !isFinished()) {
                 readNextChunk();
             }
 
@@ -387,7 +1136,7 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
 
         @Override
         public E next() {
-            if (isCurrentChunkExhausted() && !isFinished()) {
+            while (isCurrentChunkExhausted() && !isFinished()) {
                 readNextChunk();
             }
             return chunkIterator.next();
@@ -419,172 +1168,1736 @@ public class FileBasedCollectionList<E extends Serializable> extends AbstractCol
         }
     }
 
+    /**
+     * Each chunk is serialized and compressed on its own, so any chunk can be read without reading the chunks before
+     * it. The offset, length and element count of each chunk are kept in the {@link ChunkIndex}.
+     * <p>The file starts with a header of {@link #HEADER_SIZE} bytes: the magic, the version and the offset of the
+     * footer (0 if the footer was not written yet). The footer is written after the chunks by {@link #persist()}, and
+     * contains the element count, the chunk size, the codec id, the Bloom filter size, the compression id and the chunk
+     * index with the removed elements and the Bloom filter of each chunk, followed by the CRC32 of these. The version
+     * 1 footer has no removed elements, the version 2 footer has no Bloom filters, and the version 3 footer has no
+     * compression id (the chunks are compressed with Snappy).
+     */
     @SuppressWarnings("ResultOfMethodCallIgnored")
-    private static class Store<E extends Serializable> implements Closeable {
-        private final File file;
-        private final ObjectOutputStream outputStream;
+    private static class Store<E> implements Closeable {
+        /**
+         * "FBCL"
+         */
+        private static final int MAGIC = 0x4642434C;
+        private static final int VERSION = 4;
+        private static final int HEADER_SIZE = 32;
+        /**
+         * The ratio of the live chunk bytes in the file, below which {@link #persist()} copies the live chunks to a new
+         * file instead of appending the footer to the file.
+         */
+        private static final double RECLAIM_THRESHOLD = 0.5;
+        /**
+         * The codec id written to the footer when the elements are written with the Java serialization.
+         */
+        private static final String SERIALIZATION_CODEC_ID = "java-serialization";
+        private static final List<ElementCodec<?>> BUILTIN_CODECS = Arrays.asList(
+                ElementCodec.STRING, ElementCodec.INTEGER, ElementCodec.LONG, ElementCodec.DOUBLE, ElementCodec.FLOAT,
+                ElementCodec.SHORT, ElementCodec.BYTE, ElementCodec.CHARACTER, ElementCodec.BOOLEAN, ElementCodec.UUID,
+                ElementCodec.BYTE_ARRAY);
+        private static final List<Compression> BUILTIN_COMPRESSIONS = Arrays.asList(
+                Compression.NONE, Compression.SNAPPY, Compression.SNAPPY_FRAMED, Compression.deflate(Deflater.DEFAULT_COMPRESSION));
+
+        private final StoreType storeType;
+        private final int chunkSize;
+        private final ElementCodec<E> codec;
+        private final int bloomFilterBits;
+        private final int bloomFilterHashes;
+        private final Compression compression;
+        private final ChunkSerializer<E> serializer;
+        private final ChunkIndex index = new ChunkIndex();
+        private final ChunkCache<E> cache = new ChunkCache<>(CHUNK_CACHE_SIZE);
+        private final ThreadPoolExecutor writer;
+        private File file;
+        private FileChannel channel;
+        private Storage storage;
+        private boolean persistent;
+        private volatile boolean closed = false;
+        /**
+         * Held for reading while a chunk is read, which may happen on the {@link Prefetcher} threads, and for writing
+         * while the storage is closed or replaced, so the storage is never closed (or unmapped) under a read.
+         */
+        private final ReadWriteLock storageLock = new ReentrantReadWriteLock();
+        private volatile Future<?> lastWrite = null;
+        private volatile Throwable writeFailure = null;
+        private long end = HEADER_SIZE;
+        /**
+         * The chunk whose elements were replaced by {@link #set(int, int, Object)} but not written yet, or -1.
+         */
+        private int dirtyChunk = -1;
+        private ArrayList<E> dirtyElements = null;
+        private final LongAdder rawBytesWritten = new LongAdder();
+        private final LongAdder compressedBytesWritten = new LongAdder();
+        private final LongAdder compressNanos = new LongAdder();
+        private final LongAdder rawBytesRead = new LongAdder();
+        private final LongAdder compressedBytesRead = new LongAdder();
+        private final LongAdder decompressNanos = new LongAdder();
+
+        private Store(Builder<E> builder, int chunkSize, @Nullable ElementCodec<E> codec, int bloomFilterBits, Compression compression, File file, FileChannel channel, boolean persistent) {
+            this.storeType = builder.storeType;
+            this.chunkSize = chunkSize;
+            this.codec = codec;
+            this.bloomFilterBits = bloomFilterBits;
+            this.bloomFilterHashes = BloomFilter.getHashes(bloomFilterBits);
+            this.compression = compression;
+            this.serializer = codec == null ? new SerializedChunkSerializer<>() : new CodecChunkSerializer<>(codec);
+            this.writer = builder.writeBehindQueueSize > 0 ? createWriter(builder.writeBehindQueueSize) : null;
+            this.file = file;
+            this.channel = channel;
+            this.storage = createStorage(storeType, channel);
+            this.persistent = persistent;
+        }
 
-        Store() {
+        /**
+         * Creates an empty store at the path of the builder, or at a temporary file if the path is not set.
+         */
+        static <E> Store<E> create(Builder<E> builder) {
+            File file = builder.path != null ? builder.path.toFile() : createTmpFileForFileBasedCollection(builder.directory);
             try {
-                file = createTmpFileForFileBasedCollection();
-                // BufferedOutputStream slightly improves performance when applied in this order: ObjectOutputStream -> BufferedOutputStream -> SnappyOutputStream -> FileOutputStream
-                outputStream = new ObjectOutputStream(new BufferedOutputStream(new SnappyOutputStream(new FileOutputStream(file))));
-                outputStream.flush(); // write ObjectOutputStream headers into file
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                Store<E> store = new Store<>(builder, builder.chunkSize, builder.codec, builder.bloomFilterBits, builder.compression, file, channel, builder.path != null);
+                store.writeHeader(0);
+                return store;
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         }
 
-        private File createTmpFileForFileBasedCollection() {
+        /**
+         * Opens the store persisted at the file. Only the header and the footer are read, and the new chunks are
+         * written after the footer, so the file stays readable until the next footer is written.
+         */
+        static <E> Store<E> open(Builder<E> builder, File file) throws IOException {
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                ByteBuffer header = read(channel, 0, HEADER_SIZE);
+                if (header.getInt() != MAGIC) throw new IOException(file + " is not a FileBasedCollectionList file");
+                int version = header.getInt();
+                if (version < 1 || version > VERSION) throw new IOException("Unsupported version " + version + ": " + file);
+                long footerOffset = header.getLong();
+                if (footerOffset == 0) throw new IOException(file + " was not closed or persisted");
+                int length = read(channel, footerOffset, 4).getInt();
+                if (length < 0 || footerOffset + 12 + length > channel.size()) throw new IOException("The footer of " + file + " is corrupted");
+                ByteBuffer footer = read(channel, footerOffset + 4, length + 8);
+                CRC32 crc = new CRC32();
+                crc.update(footer.array(), 0, length);
+                if (crc.getValue() != footer.getLong(length)) throw new IOException("The footer of " + file + " is corrupted");
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array(), 0, length));
+                long elements = in.readLong();
+                int chunkSize = in.readInt();
+                ElementCodec<E> codec = resolveCodec(builder.codec, in.readUTF());
+                int bloomFilterBits = version >= 3 ? in.readInt() : 0;
+                Compression compression = resolveCompression(builder.compression, version >= 4 ? in.readUTF() : Compression.SNAPPY.getId());
+                int chunks = in.readInt();
+                Store<E> store = new Store<>(builder, chunkSize, codec, bloomFilterBits, compression, file, channel, true);
+                for (int i = 0; i < chunks; i++) {
+                    long offset = in.readLong();
+                    int chunkLength = in.readInt();
+                    int count = in.readInt();
+                    BitSet removed = null;
+                    if (version >= 2) {
+                        long[] words = new long[in.readInt()];
+                        for (int j = 0; j < words.length; j++) {
+                            words[j] = in.readLong();
+                        }
+                        removed = BitSet.valueOf(words);
+                    }
+                    long[] filter = null;
+                    if (version >= 3) {
+                        int filterLength = in.readInt();
+                        if (filterLength >= 0) {
+                            filter = new long[filterLength];
+                            for (int j = 0; j < filterLength; j++) {
+                                filter[j] = in.readLong();
+                            }
+                        }
+                    }
+                    store.index.add(offset, chunkLength, count, removed, filter);
+                }
+                if (store.index.getElementCount() != elements) throw new IOException("The footer of " + file + " is corrupted");
+                store.end = footerOffset + 12 + length;
+                return store;
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            new ChannelStorage(channel).read(position, buffer.array());
+            return buffer;
+        }
+
+        /**
+         * Returns the codec to read the file written with the codec id. If the codec is not set, the codec is looked
+         * up from the codecs defined in {@link ElementCodec}.
+         */
+        private static <E> ElementCodec<E> resolveCodec(@Nullable ElementCodec<E> codec, String id) throws IOException {
+            if (codec == null) {
+                if (id.equals(SERIALIZATION_CODEC_ID)) return null;
+                for (ElementCodec<?> builtin : BUILTIN_CODECS) {
+                    if (id.equals(builtin.getId())) return (ElementCodec<E>) builtin;
+                }
+                throw new IOException("The file was written with the codec '" + id + "', which must be set with Builder#setCodec");
+            }
+            if (id.equals(SERIALIZATION_CODEC_ID) || (!id.isEmpty() && codec.getId() != null && !id.equals(codec.getId()))) {
+                throw new IOException("The file was written with the codec '" + id + "', but the codec '" + codec.getId() + "' was set");
+            }
+            return codec;
+        }
+
+        /**
+         * Returns the compression to read the file written with the compression id. The compression of the builder is
+         * used if the id matches, otherwise the compression is looked up from the compressions defined in
+         * {@link Compression}.
+         */
+        private static Compression resolveCompression(Compression compression, String id) throws IOException {
+            if (id.equals(compression.getId())) return compression;
+            for (Compression builtin : BUILTIN_COMPRESSIONS) {
+                if (id.equals(builtin.getId())) return builtin;
+            }
+            throw new IOException("The file was written with the compression '" + id + "', which must be set with Builder#setCompression");
+        }
+
+        private static String getCodecId(@Nullable ElementCodec<?> codec) {
+            if (codec == null) return SERIALIZATION_CODEC_ID;
+            return codec.getId() == null ? "" : codec.getId();
+        }
+
+        private static Storage createStorage(StoreType storeType, FileChannel channel) {
+            return storeType == StoreType.MEMORY_MAPPED ? new MappedStorage(channel) : new ChannelStorage(channel);
+        }
+
+        private static File createTmpFileForFileBasedCollection(@Nullable Path directory) {
             String tmpDir = System.getProperty("java.io.tmpdir");
             String uniqueFileName = "FileBasedCollectionList-";
             String stamp = UUID.randomUUID().toString();
             String extension = ".bin";
-            File file = new File(tmpDir, uniqueFileName + stamp + extension);
+            File file = new File(directory != null ? directory.toFile() : new File(tmpDir), uniqueFileName + stamp + extension);
             file.deleteOnExit();
             return file;
         }
 
+        private void writeHeader(long footerOffset) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(footerOffset);
+            storage.write(0, header.array());
+        }
+
+        /**
+         * Writes the footer after the last chunk and points the header to it. The header is written after the footer
+         * is forced to the disk, so the file always points to a complete footer.
+         */
+        synchronized void persist() {
+            sync();
+            writeDirty();
+            File reclaimed = null;
+            try {
+                if (getLiveBytesRatio() < RECLAIM_THRESHOLD) reclaimed = reclaim();
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeLong(index.getElementCount());
+                out.writeInt(chunkSize);
+                out.writeUTF(getCodecId(codec));
+                out.writeInt(bloomFilterBits);
+                out.writeUTF(compression.getId());
+                out.writeInt(index.getChunkCount());
+                for (int i = 0; i < index.getChunkCount(); i++) {
+                    out.writeLong(index.getOffset(i));
+                    out.writeInt(index.getLength(i));
+                    out.writeInt(index.getCount(i));
+                    BitSet removed = index.getRemoved(i);
+                    long[] words = removed == null ? new long[0] : removed.toLongArray();
+                    out.writeInt(words.length);
+                    for (long word : words) {
+                        out.writeLong(word);
+                    }
+                    long[] filter = index.getFilter(i);
+                    out.writeInt(filter == null ? -1 : filter.length);
+                    if (filter != null) {
+                        for (long word : filter) {
+                            out.writeLong(word);
+                        }
+                    }
+                }
+                out.flush();
+                CRC32 crc = new CRC32();
+                crc.update(bytes.toByteArray());
+                ByteBuffer footer = ByteBuffer.allocate(bytes.size() + 12);
+                footer.putInt(bytes.size()).put(bytes.toByteArray()).putLong(crc.getValue());
+                long offset = append(footer.array());
+                storage.force();
+                writeHeader(offset);
+                storage.force();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            // the old file is replaced only after the new file is complete
+            if (reclaimed != null) moveTo(reclaimed);
+        }
+
+        /**
+         * Returns the ratio of the bytes of the chunks to all bytes after the header. The rest is the old content of
+         * the rewritten chunks and the old footers.
+         */
+        private double getLiveBytesRatio() {
+            long total = end - HEADER_SIZE;
+            if (total == 0) return 1;
+            long live = 0;
+            for (int chunk = 0; chunk < index.getChunkCount(); chunk++) {
+                live += index.getLength(chunk);
+            }
+            return (double) live / total;
+        }
+
+        /**
+         * Copies the chunks to a new file in the same directory, and continues on the new file. The old file is not
+         * changed, so the caller should move the new file to the old file (after writing the footer if the store is
+         * persistent), or delete the old file.
+         * @return the old file
+         */
+        private File reclaim() throws IOException {
+            File old = file;
+            File target = File.createTempFile(old.getName() + ".reclaim", ".tmp", old.getAbsoluteFile().getParentFile());
+            FileChannel targetChannel = FileChannel.open(target.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Storage targetStorage = createStorage(storeType, targetChannel);
+            long[] offsets = new long[index.getChunkCount()];
+            long offset = HEADER_SIZE;
+            try {
+                for (int chunk = 0; chunk < offsets.length; chunk++) {
+                    int length = index.getLength(chunk);
+                    if (length == 0) continue;
+                    byte[] bytes = new byte[length];
+                    storage.read(index.getOffset(chunk), bytes);
+                    targetStorage.write(offset, bytes);
+                    offsets[chunk] = offset;
+                    offset += length;
+                }
+            } catch (IOException | RuntimeException e) {
+                targetStorage.close();
+                targetChannel.close();
+                target.delete();
+                throw e;
+            }
+            storageLock.writeLock().lock();
+            try {
+                for (int chunk = 0; chunk < offsets.length; chunk++) {
+                    if (index.getLength(chunk) != 0) index.move(chunk, offsets[chunk]);
+                }
+                storage.close();
+                channel.close();
+                file = target;
+                channel = targetChannel;
+                storage = targetStorage;
+            } finally {
+                storageLock.writeLock().unlock();
+            }
+            end = offset;
+            writeHeader(0);
+            return old;
+        }
+
+        /**
+         * Moves the file of this store to the target, replacing the existing file, and makes this store persistent.
+         */
+        synchronized void moveTo(File target) {
+            sync();
+            writeDirty();
+            storageLock.writeLock().lock();
+            try {
+                storage.close();
+                channel.close();
+                Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                file = target;
+                persistent = true;
+                channel = FileChannel.open(target.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                storage = createStorage(storeType, channel);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                storageLock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Closes this store without writing the footer. The file is left as it was last persisted.
+         */
+        synchronized void discard() {
+            if (persistent) {
+                persistent = false;
+                release(false);
+            } else {
+                close();
+            }
+        }
+
+        /**
+         * Closes this store. The footer is written if the store is persistent, otherwise the file is deleted.
+         */
         @Override
-        public void close() {
+        public synchronized void close() {
+            if (closed) return;
+            if (persistent) {
+                try {
+                    persist();
+                } finally {
+                    release(false);
+                }
+            } else {
+                release(true);
+            }
+        }
+
+        private void release(boolean delete) {
+            closed = true;
+            if (writer != null) {
+                writer.shutdown();
+                try {
+                    writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            // waits for the reads of the chunks, like the prefetches of an iterator which was not closed
+            storageLock.writeLock().lock();
             try {
-                outputStream.close();
-                file.delete();
+                cache.clear();
+                storage.close();
+                // the mapped storage grows the file by the whole segments
+                if (!delete) channel.truncate(end);
+                channel.close();
+                if (delete) file.delete();
             } catch(IOException ioe) {
                 // ignore
+            } finally {
+                storageLock.writeLock().unlock();
             }
         }
 
+        /**
+         * Writes the chunk, or hands the chunk to the background writer if the write-behind is enabled. The chunk
+         * must not be modified after calling this method.
+         */
         void write(ArrayList<E> chunk) {
+            if (writer == null) {
+                writeNow(chunk);
+                return;
+            }
+            checkWriteFailure();
+            lastWrite = writer.submit(() -> {
+                // a chunk can't be skipped, so everything after the failed chunk is dropped
+                if (writeFailure != null) return;
+                try {
+                    writeNow(chunk);
+                } catch (Throwable t) {
+                    writeFailure = t;
+                }
+            });
+        }
+
+        private void writeNow(ArrayList<E> chunk) {
+            byte[] bytes = encode(chunk);
+            index.add(append(bytes), bytes.length, chunk.size(), null, createFilter(chunk));
+        }
+
+        /**
+         * Waits until all chunks handed to the background writer are written. This is called before reading the
+         * index, and returns immediately if the write-behind is disabled or there is no pending write.
+         */
+        void sync() {
+            Future<?> last = lastWrite;
+            if (last != null) {
+                try {
+                    last.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+            checkWriteFailure();
+        }
+
+        private void checkWriteFailure() {
+            if (writeFailure != null) {
+                throw new RuntimeException("Failed to write the chunk", writeFailure);
+            }
+        }
+
+        private static ThreadPoolExecutor createWriter(int queueSize) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), r -> {
+                Thread thread = new Thread(r, "FileBasedCollectionList-Writer");
+                thread.setDaemon(true);
+                return thread;
+            }, (r, e) -> {
+                // blocks the producer until the writer catches up
+                if (e.isShutdown()) throw new RejectedExecutionException("Store is closed");
+                try {
+                    e.getQueue().put(r);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException(ex);
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+        /**
+         * Replaces the element of the chunk in the memory. The chunk is written by {@link #writeDirty()} when an
+         * element of another chunk is replaced, or before the chunks are modified otherwise or the footer is written,
+         * so replacing the elements in order writes each chunk once.
+         * @param position the position of the element in the chunk returned by {@link #readChunk(int)}
+         * @return the replaced element
+         */
+        E set(int chunk, int position, E element) {
+            if (chunk != dirtyChunk) {
+                writeDirty();
+                dirtyElements = new ArrayList<>(getChunk(chunk));
+                dirtyChunk = chunk;
+            }
+            return dirtyElements.set(position, element);
+        }
+
+        /**
+         * Writes the chunk whose elements were replaced by {@link #set(int, int, Object)}, if any.
+         */
+        void writeDirty() {
+            if (dirtyChunk < 0) return;
+            int chunk = dirtyChunk;
+            ArrayList<E> elements = dirtyElements;
+            dirtyChunk = -1;
+            dirtyElements = null;
+            rewrite(chunk, elements);
+        }
+
+        /**
+         * Writes the new content of the chunk at the end of the file and points the index to it. The number of the
+         * live elements of the chunk must not change, and the removed elements of the chunk are dropped.
+         */
+        void rewrite(int chunk, ArrayList<E> elements) {
+            sync();
+            byte[] bytes = encode(elements);
+            index.rewrite(chunk, append(bytes), bytes.length, createFilter(elements));
+            cache.put(chunk, elements);
+        }
+
+        /**
+         * Marks the elements of the chunk as removed, and rewrites the chunk if the ratio of its live elements drops
+         * below the threshold.
+         * @param positions the positions of the elements in the chunk returned by {@link #readChunk(int)}
+         */
+        void remove(int chunk, BitSet positions, double threshold) {
+            sync();
+            writeDirty();
+            index.remove(chunk, positions);
+            cache.remove(chunk);
+            if (getLiveRatio(chunk) < threshold) compact(chunk);
+        }
+
+        /**
+         * Rewrites the chunks whose ratio of the live elements is below the threshold.
+         */
+        void compact(double threshold) {
+            sync();
+            writeDirty();
+            for (int chunk = 0; chunk < index.getChunkCount(); chunk++) {
+                if (index.getRemoved(chunk) != null && getLiveRatio(chunk) < threshold) compact(chunk);
+            }
+            // the file of the persistent store is reclaimed by persist, so the last footer stays readable
+            if (!persistent && getLiveBytesRatio() < threshold) {
+                try {
+                    reclaim().delete();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        private double getLiveRatio(int chunk) {
+            return (double) index.getLiveCount(chunk) / index.getCount(chunk);
+        }
+
+        private void compact(int chunk) {
+            if (index.getLiveCount(chunk) == 0) {
+                // nothing to read, so the chunk is just emptied
+                index.rewrite(chunk, 0, 0, null);
+                return;
+            }
+            ArrayList<E> elements = readChunk(chunk);
+            byte[] bytes = encode(elements);
+            index.rewrite(chunk, append(bytes), bytes.length, createFilter(elements));
+        }
+
+        private long append(byte[] bytes) {
+            long offset = end;
             try {
-                outputStream.writeObject(chunk);
-                outputStream.flush();
-                outputStream.reset();
+                storage.write(offset, bytes);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
+            end += bytes.length;
+            return offset;
+        }
+
+        /**
+         * Returns the chunk from the cache, or reads the chunk from the disk and caches it.
+         */
+        ArrayList<E> getChunk(int chunk) {
+            sync();
+            if (chunk == dirtyChunk) return dirtyElements;
+            ArrayList<E> elements = cache.get(chunk);
+            if (elements == null) {
+                elements = readChunk(chunk);
+                cache.put(chunk, elements);
+            }
+            return elements;
         }
 
-        ChunkReader<E> getReader() {
+        /**
+         * Reads the chunk from the disk, bypassing the cache. The chunk replaced by {@link #set(int, int, Object)} is
+         * copied from the memory instead.
+         */
+        ArrayList<E> readChunk(int chunk) {
+            ArrayList<E> dirty = dirtyElements;
+            if (dirty != null && chunk == dirtyChunk) return new ArrayList<>(dirty);
+            int length = index.getLength(chunk);
+            if (length == 0) return new ArrayList<>();
+            byte[] bytes = new byte[length];
+            storageLock.readLock().lock();
             try {
-                // BufferedInputStream slightly improves performance when applied in this order: FileInputStream -> SnappyInputStream -> BufferedInputStream -> ObjectInputStream
-                return new ChunkReader<>(new ObjectInputStream(new BufferedInputStream(new SnappyInputStream(new FileInputStream(file)))));
+                if (closed) throw new IllegalStateException("Store is closed");
+                storage.read(index.getOffset(chunk), bytes);
             } catch (IOException e) {
                 throw new RuntimeException(e);
+            } finally {
+                storageLock.readLock().unlock();
             }
+            ArrayList<E> elements = decode(bytes);
+            BitSet removed = index.getRemoved(chunk);
+            if (removed == null) return elements;
+            ArrayList<E> live = new ArrayList<>(index.getLiveCount(chunk));
+            for (int i = removed.nextClearBit(0); i < elements.size(); i = removed.nextClearBit(i + 1)) {
+                live.add(elements.get(i));
+            }
+            return live;
         }
-    }
 
-    private static class ChunkReader<E> implements Closeable {
-        private final ObjectInputStream inputStream;
+        int getChunkCount() {
+            sync();
+            return index.getChunkCount();
+        }
 
-        ChunkReader(ObjectInputStream inputStream) {
-            this.inputStream = inputStream;
+        long getElementCount() {
+            sync();
+            return index.getElementCount();
         }
 
-        Optional<ArrayList<E>> readChunk() {
+        long getChunkStart(int chunk) { return index.getStart(chunk); }
+
+        /**
+         * Returns the number of elements in the chunks from <code>fromChunk</code> (inclusive) to
+         * <code>toChunk</code> (exclusive).
+         */
+        long countElements(int fromChunk, int toChunk) {
+            if (fromChunk >= toChunk) return 0;
+            return index.getStart(toChunk) - index.getStart(fromChunk);
+        }
+
+        int findChunk(long element) {
+            sync();
+            return index.find(element);
+        }
+
+        ChunkReader<E> getReader(int prefetchDepth) {
+            return getReader(prefetchDepth, chunk -> true);
+        }
+
+        ChunkReader<E> getReader(int prefetchDepth, IntPredicate filter) {
+            return new ChunkReader<>(this, getChunkCount(), prefetchDepth, filter);
+        }
+
+        /**
+         * Returns false if the chunk doesn't contain an element with the hash code, or true if the chunk may
+         * contain it or the chunk has no Bloom filter.
+         */
+        boolean mightContain(int chunk, int hash) {
+            // the filter of the chunk replaced by set is not updated until the chunk is written
+            if (chunk == dirtyChunk) return true;
+            long[] filter = index.getFilter(chunk);
+            return filter == null || BloomFilter.mightContain(filter, bloomFilterHashes, hash);
+        }
+
+        @Nullable
+        private long[] createFilter(List<E> elements) {
+            return bloomFilterBits > 0 ? BloomFilter.create(elements, bloomFilterBits, bloomFilterHashes) : null;
+        }
+
+        private byte[] encode(ArrayList<E> chunk) {
             try {
-                @SuppressWarnings("unchecked")
-                ArrayList<E> chunk = (ArrayList<E>) inputStream.readObject();
-                return Optional.of(chunk);
-            } catch (EOFException e) {
-                return Optional.empty();
-            } catch (IOException | ClassNotFoundException e) {
+                byte[] raw = serializer.serialize(chunk);
+                long start = System.nanoTime();
+                byte[] compressed = compression.compress(raw);
+                compressNanos.add(System.nanoTime() - start);
+                rawBytesWritten.add(raw.length);
+                compressedBytesWritten.add(compressed.length);
+                return compressed;
+            } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         }
 
-        @Override
-        public void close() throws IOException {
-            inputStream.close();
+        private ArrayList<E> decode(byte[] bytes) {
+            try {
+                long start = System.nanoTime();
+                byte[] raw = compression.uncompress(bytes);
+                decompressNanos.add(System.nanoTime() - start);
+                rawBytesRead.add(raw.length);
+                compressedBytesRead.add(bytes.length);
+                return serializer.deserialize(raw);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        CompressionStats getCompressionStats() {
+            return new CompressionStats(rawBytesWritten.sum(), compressedBytesWritten.sum(), compressNanos.sum(),
+                    rawBytesRead.sum(), compressedBytesRead.sum(), decompressNanos.sum());
         }
     }
 
-    private static class FileBasedCollectionSorter {
+    /**
+     * The number of the bytes compressed and uncompressed by the {@link Compression} of the list, and the time spent
+     * on it. The counters start when the store of the list is created, and the lists rebuilt by {@link #sort()},
+     * {@link #clear()} or similar start from zero.
+     */
+    public static final class CompressionStats {
+        private final long rawBytesWritten;
+        private final long compressedBytesWritten;
+        private final long compressNanos;
+        private final long rawBytesRead;
+        private final long compressedBytesRead;
+        private final long decompressNanos;
+
+        CompressionStats(long rawBytesWritten, long compressedBytesWritten, long compressNanos, long rawBytesRead, long compressedBytesRead, long decompressNanos) {
+            this.rawBytesWritten = rawBytesWritten;
+            this.compressedBytesWritten = compressedBytesWritten;
+            this.compressNanos = compressNanos;
+            this.rawBytesRead = rawBytesRead;
+            this.compressedBytesRead = compressedBytesRead;
+            this.decompressNanos = decompressNanos;
+        }
 
-        public <E extends Serializable & Comparable<E>> FileBasedCollectionList<E> sort(
-                FileBasedCollectionList<E> source,
-                final int bucketSize,
-                final int chunkSize) throws IOException {
-            List<FileBasedCollectionList<E>> buckets = new ArrayList<>();
-            SortedSet<E> sorted = new TreeSet<>();
-            try (FileBasedCollectionList.FileBasedIterator<E> iterator = source.iterator()) {
-                while (iterator.hasNext()){
-                    if (sorted.size() < bucketSize) {
-                        sorted.add(iterator.next());
-                    } else {
-                        buckets.add(createBucket(sorted, chunkSize));
-                        sorted.clear();
-                    }
-                }
-                if (!sorted.isEmpty()) buckets.add(createBucket(sorted, chunkSize));
+        /**
+         * Returns the number of the serialized bytes of the chunks written, before the compression.
+         */
+        public long getRawBytesWritten() {
+            return rawBytesWritten;
+        }
 
-            } finally {
-                source.close();
-            }
+        /**
+         * Returns the number of the bytes of the chunks written, after the compression.
+         */
+        public long getCompressedBytesWritten() {
+            return compressedBytesWritten;
+        }
 
-            return merge(buckets, source.getChunkSize());
+        public long getCompressNanos() {
+            return compressNanos;
         }
 
-        private <E extends Serializable & Comparable<E>> FileBasedCollectionList<E> createBucket(SortedSet<E> sorted, final int chunkSize){
-            FileBasedCollectionList<E> bucket = new FileBasedCollectionList<>(chunkSize);
-            bucket.addAll(sorted);
-            return bucket;
+        /**
+         * Returns the number of the serialized bytes of the chunks read, after the decompression.
+         */
+        public long getRawBytesRead() {
+            return rawBytesRead;
         }
 
-        private <E extends Serializable & Comparable<E>> FileBasedCollectionList<E> merge(List<FileBasedCollectionList<E>> buckets, final int chunkSize) {
-            FileBasedCollectionList<E> merged = new FileBasedCollectionList<>(chunkSize);
+        /**
+         * Returns the number of the bytes of the chunks read, before the decompression.
+         */
+        public long getCompressedBytesRead() {
+            return compressedBytesRead;
+        }
 
-            List<FileBasedCollectionList.FileBasedIterator<E>> iterators = buckets.stream()
-                    .map(FileBasedCollectionList::iterator)
-                    .collect(Collectors.toList());
+        public long getDecompressNanos() {
+            return decompressNanos;
+        }
 
-            List<E> heads = new ArrayList<>(buckets.size());
-            for (FileBasedCollectionList.FileBasedIterator<E> iterator : iterators) {
-                if(iterator.hasNext()){
-                    heads.add(iterator.next());
-                }else{
-                    heads.add(null);
-                }
-            }
+        /**
+         * Returns the compressed size of the written chunks divided by their raw size, or 1 if nothing was written.
+         */
+        public double getCompressionRatio() {
+            return rawBytesWritten == 0 ? 1 : (double) compressedBytesWritten / rawBytesWritten;
+        }
 
-            while(hasMoreElements(heads)){
-                E minValue = findMinValue(heads);
-                merged.add(minValue);
+        @Override
+        public String toString() {
+            return "CompressionStats{" +
+                    "rawBytesWritten=" + rawBytesWritten +
+                    ", compressedBytesWritten=" + compressedBytesWritten +
+                    ", compressNanos=" + compressNanos +
+                    ", rawBytesRead=" + rawBytesRead +
+                    ", compressedBytesRead=" + compressedBytesRead +
+                    ", decompressNanos=" + decompressNanos +
+                    '}';
+        }
+    }
 
-                for(int i=0;i<heads.size();i++){
-                    if(heads.get(i) != null && heads.get(i).equals(minValue)){
-                        heads.set(i, getNextOrNull(iterators.get(i)));
-                    }
-                }
-            }
+    /**
+     * Converts a chunk to the uncompressed bytes and back.
+     */
+    private interface ChunkSerializer<E> {
+        byte[] serialize(ArrayList<E> chunk) throws IOException;
 
-            iterators.forEach(i -> { try { i.close(); } catch(IOException ioe) {  throw new RuntimeException(ioe); } });
-            buckets.forEach(FileBasedCollectionList::close);
+        ArrayList<E> deserialize(byte[] bytes) throws IOException;
+    }
 
-            return merged;
+    /**
+     * Writes the chunk as a serialized {@link ArrayList}.
+     */
+    private static class SerializedChunkSerializer<E> implements ChunkSerializer<E> {
+        @Override
+        public byte[] serialize(ArrayList<E> chunk) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+                outputStream.writeObject(chunk);
+            }
+            return bytes.toByteArray();
         }
 
-        private <E extends Serializable & Comparable<E>> E getNextOrNull(FileBasedCollectionList.FileBasedIterator<E> iterator){
-            if (iterator.hasNext()) {
-                return iterator.next();
+        @Override
+        public ArrayList<E> deserialize(byte[] bytes) throws IOException {
+            try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return (ArrayList<E>) inputStream.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
             }
-            return null;
         }
+    }
 
-        private <E extends Serializable & Comparable<E>> boolean hasMoreElements(List<E> heads) {
-            return heads.stream().anyMatch(Objects::nonNull);
+    /**
+     * Writes the element count of the chunk, followed by the length and the bytes of each element encoded by the
+     * {@link ElementCodec}. The length of the null element is -1.
+     */
+    private static class CodecChunkSerializer<E> implements ChunkSerializer<E> {
+        private final ElementCodec<E> codec;
+
+        CodecChunkSerializer(ElementCodec<E> codec) {
+            this.codec = codec;
         }
 
-        private <E extends Serializable & Comparable<E>> E findMinValue(List<E> heads){
-            E minValue = null;
-            for(E head : heads){
-                if(minValue == null || (head != null && head.compareTo(minValue) < 0)){
-                    minValue = head;
+        @Override
+        public byte[] serialize(ArrayList<E> chunk) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            ByteArrayOutputStream elementBytes = new ByteArrayOutputStream();
+            DataOutputStream elementOut = new DataOutputStream(elementBytes);
+            out.writeInt(chunk.size());
+            for (E element : chunk) {
+                if (element == null) {
+                    out.writeInt(-1);
+                    continue;
                 }
+                elementBytes.reset();
+                codec.encode(element, elementOut);
+                elementOut.flush();
+                out.writeInt(elementBytes.size());
+                elementBytes.writeTo(out);
             }
-            return minValue;
+            out.flush();
+            return bytes.toByteArray();
         }
+
+        @Override
+        public ArrayList<E> deserialize(byte[] bytes) throws IOException {
+            ByteArrayInputStream stream = new ByteArrayInputStream(bytes);
+            DataInputStream in = new DataInputStream(stream);
+            int count = in.readInt();
+            ArrayList<E> chunk = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                if (length < 0) {
+                    chunk.add(null);
+                    continue;
+                }
+                int end = stream.available() - length;
+                chunk.add(codec.decode(in, length));
+                // skip the bytes that the codec did not read
+                in.skipBytes(stream.available() - end);
+            }
+            return chunk;
+        }
+    }
+
+    /**
+     * Writes and reads the bytes of the {@link Store} file. Reads may be called from multiple threads at the same
+     * time, but writes are always done by one thread.
+     */
+    private interface Storage extends Closeable {
+        void write(long position, byte[] bytes) throws IOException;
+
+        void read(long position, byte[] bytes) throws IOException;
+
+        /**
+         * Forces the written bytes to the disk.
+         */
+        void force() throws IOException;
+    }
+
+    /**
+     * Uses positional {@link FileChannel} reads and writes, one system call per chunk.
+     */
+    private static class ChannelStorage implements Storage {
+        private final FileChannel channel;
+
+        ChannelStorage(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(long position, byte[] bytes) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+
+        @Override
+        public void read(long position, byte[] bytes) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException();
+            }
+        }
+
+        @Override
+        public void force() throws IOException {
+            channel.force(true);
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * Maps the file into {@link MappedByteBuffer} segments of {@link #SEGMENT_SIZE} bytes, which are mapped when the
+     * file grows into them. Reads are copied straight from the mapped pages, so all iterators share the page cache
+     * and no system call is needed per chunk.
+     */
+    private static class MappedStorage implements Storage {
+        private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+        private final FileChannel channel;
+        private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+        MappedStorage(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(long position, byte[] bytes) throws IOException {
+            int done = 0;
+            while (done < bytes.length) {
+                long current = position + done;
+                ByteBuffer segment = getSegment((int) (current / SEGMENT_SIZE)).duplicate();
+                segment.position((int) (current % SEGMENT_SIZE));
+                int length = Math.min(bytes.length - done, segment.remaining());
+                segment.put(bytes, done, length);
+                done += length;
+            }
+        }
+
+        @Override
+        public void read(long position, byte[] bytes) throws IOException {
+            int done = 0;
+            while (done < bytes.length) {
+                long current = position + done;
+                ByteBuffer segment = getSegment((int) (current / SEGMENT_SIZE)).duplicate();
+                segment.position((int) (current % SEGMENT_SIZE));
+                int length = Math.min(bytes.length - done, segment.remaining());
+                segment.get(bytes, done, length);
+                done += length;
+            }
+        }
+
+        /**
+         * Returns the segment, mapping it and the segments before it if needed. The segments are mapped on reads too,
+         * as the chunks of a reopened file are read before anything is written.
+         */
+        private MappedByteBuffer getSegment(int segment) throws IOException {
+            MappedByteBuffer[] segments = this.segments;
+            if (segment < segments.length) {
+                return segments[segment];
+            }
+            return mapSegment(segment);
+        }
+
+        private synchronized MappedByteBuffer mapSegment(int segment) throws IOException {
+            MappedByteBuffer[] segments = this.segments;
+            if (segment < segments.length) {
+                return segments[segment];
+            }
+            MappedByteBuffer[] newSegments = Arrays.copyOf(segments, segment + 1);
+            for (int i = segments.length; i <= segment; i++) {
+                newSegments[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * SEGMENT_SIZE, SEGMENT_SIZE);
+            }
+            this.segments = newSegments;
+            return newSegments[segment];
+        }
+
+        @Override
+        public void force() {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+
+        @Override
+        public void close() {
+            MappedByteBuffer[] segments = this.segments;
+            this.segments = new MappedByteBuffer[0];
+            for (MappedByteBuffer segment : segments) {
+                DirectBuffers.free(segment);
+            }
+        }
+    }
+
+    /**
+     * Keeps the offset, length, element count, removed elements and Bloom filter of each chunk written to the
+     * {@link Store}. This takes about 40 bytes per chunk, plus the bitmaps and the filters. The number of the live
+     * elements of each chunk is summed in a Fenwick tree, so finding the chunk of an element and removing an element
+     * take O(log n) for n chunks.
+     */
+    private static class ChunkIndex {
+        private long[] offsets = new long[16];
+        private int[] lengths = new int[16];
+        private int[] counts = new int[16];
+        private int[] live = new int[16];
+        private BitSet[] removed = new BitSet[16];
+        private long[][] filters = new long[16][];
+        /**
+         * The Fenwick tree of the live counts, indexed from 1.
+         */
+        private long[] tree = new long[17];
+        private int chunks = 0;
+        private long elements = 0;
+
+        void add(long offset, int length, int count, @Nullable BitSet removedElements, @Nullable long[] filter) {
+            if (chunks == offsets.length) {
+                grow(chunks * 2);
+            }
+            if (removedElements != null && removedElements.isEmpty()) removedElements = null;
+            int liveCount = removedElements == null ? count : count - removedElements.cardinality();
+            offsets[chunks] = offset;
+            lengths[chunks] = length;
+            counts[chunks] = count;
+            live[chunks] = liveCount;
+            removed[chunks] = removedElements;
+            filters[chunks] = filter;
+            update(chunks, liveCount);
+            chunks++;
+            elements += liveCount;
+        }
+
+        private void grow(int newLength) {
+            offsets = Arrays.copyOf(offsets, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            counts = Arrays.copyOf(counts, newLength);
+            live = Arrays.copyOf(live, newLength);
+            removed = Arrays.copyOf(removed, newLength);
+            filters = Arrays.copyOf(filters, newLength);
+            tree = new long[newLength + 1];
+            for (int i = 1; i <= chunks; i++) {
+                tree[i] += live[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= newLength) tree[parent] += tree[i];
+            }
+        }
+
+        private void update(int chunk, int delta) {
+            for (int i = chunk + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /**
+         * Points the chunk to the new content, which contains only the live elements of the chunk.
+         */
+        void rewrite(int chunk, long offset, int length, @Nullable long[] filter) {
+            offsets[chunk] = offset;
+            lengths[chunk] = length;
+            counts[chunk] = live[chunk];
+            removed[chunk] = null;
+            filters[chunk] = filter;
+        }
+
+        /**
+         * Marks the elements as removed.
+         * @param positions the positions of the elements among the live elements of the chunk
+         */
+        void remove(int chunk, BitSet positions) {
+            BitSet bits = removed[chunk] != null ? removed[chunk] : new BitSet(counts[chunk]);
+            int physical = -1;
+            int position = -1;
+            for (int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1)) {
+                while (position < p) {
+                    physical = bits.nextClearBit(physical + 1);
+                    position++;
+                }
+                bits.set(physical);
+            }
+            int count = positions.cardinality();
+            removed[chunk] = bits;
+            live[chunk] -= count;
+            update(chunk, -count);
+            elements -= count;
+        }
+
+        /**
+         * Finds the chunk containing the live element at the specified position.
+         */
+        int find(long element) {
+            int chunk = 0;
+            long remaining = element;
+            for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+                int next = chunk + step;
+                if (next < tree.length && tree[next] <= remaining) {
+                    chunk = next;
+                    remaining -= tree[next];
+                }
+            }
+            return chunk;
+        }
+
+        long getOffset(int chunk) { return offsets[chunk]; }
+
+        /**
+         * Points the chunk to the same content at the new offset.
+         */
+        void move(int chunk, long offset) {
+            offsets[chunk] = offset;
+        }
+
+        int getLength(int chunk) { return lengths[chunk]; }
+
+        /**
+         * Returns the number of the live elements in the chunks before the chunk.
+         */
+        long getStart(int chunk) {
+            long start = 0;
+            for (int i = chunk; i > 0; i -= i & -i) {
+                start += tree[i];
+            }
+            return start;
+        }
+
+        /**
+         * Returns the number of the elements written in the chunk, including the removed elements.
+         */
+        int getCount(int chunk) { return counts[chunk]; }
+
+        int getLiveCount(int chunk) { return live[chunk]; }
+
+        @Nullable
+        BitSet getRemoved(int chunk) { return removed[chunk]; }
+
+        @Nullable
+        long[] getFilter(int chunk) { return filters[chunk]; }
+
+        int getChunkCount() { return chunks; }
+
+        long getElementCount() { return elements; }
+    }
+
+    /**
+     * Bloom filter of the hash codes of the elements of a chunk. The bit positions are derived from the hash code with
+     * the double hashing, so the filter works with any {@link Object#hashCode()}.
+     */
+    private static final class BloomFilter {
+        private BloomFilter() {}
+
+        /**
+         * Returns the number of the hash functions which minimizes the false positive rate.
+         */
+        static int getHashes(int bitsPerElement) {
+            return Math.max(1, (int) Math.round(bitsPerElement * Math.log(2)));
+        }
+
+        static long[] create(List<?> elements, int bitsPerElement, int hashes) {
+            long[] bits = new long[Math.max(1, (int) (((long) elements.size() * bitsPerElement + 63) / 64))];
+            for (Object element : elements) {
+                long bitCount = (long) bits.length * 64;
+                long h = Objects.hashCode(element) * 0x9E3779B97F4A7C15L;
+                int h1 = (int) h;
+                int h2 = (int) (h >>> 32) | 1;
+                for (int i = 0; i < hashes; i++) {
+                    long bit = ((h1 + i * h2) & 0xFFFFFFFFL) % bitCount;
+                    bits[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+            return bits;
+        }
+
+        static boolean mightContain(long[] bits, int hashes, int hash) {
+            long bitCount = (long) bits.length * 64;
+            long h = hash * 0x9E3779B97F4A7C15L;
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = ((h1 + i * h2) & 0xFFFFFFFFL) % bitCount;
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * LRU cache of the decoded chunks, used by the random access methods.
+     */
+    private static class ChunkCache<E> extends LinkedHashMap<Integer, ArrayList<E>> {
+        private static final long serialVersionUID = 1L;
+        private final int maxSize;
+
+        ChunkCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ArrayList<E>> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    /**
+     * Reads the chunks in order, skipping the chunks rejected by the filter. If the prefetch depth is positive, the
+     * upcoming chunks are read and deserialized on the {@link Prefetcher} threads while the caller processes the
+     * current chunk. The filter is called on the caller thread, when the chunk is about to be read or prefetched.
+     */
+    private static class ChunkReader<E> implements Closeable {
+        private final Store<E> store;
+        private final int chunks;
+        private final int prefetchDepth;
+        private final IntPredicate filter;
+        private final ArrayDeque<Future<ArrayList<E>>> prefetched = new ArrayDeque<>();
+        private int nextChunk = 0;
+        private int nextPrefetch = 0;
+
+        ChunkReader(Store<E> store, int chunks, int prefetchDepth, IntPredicate filter) {
+            this.store = store;
+            this.chunks = chunks;
+            this.prefetchDepth = prefetchDepth;
+            this.filter = filter;
+        }
+
+        Optional<ArrayList<E>> readChunk() {
+            if (prefetchDepth == 0) {
+                while (nextChunk < chunks && !filter.test(nextChunk)) {
+                    nextChunk++;
+                }
+                if (nextChunk >= chunks) {
+                    return Optional.empty();
+                }
+                return Optional.of(store.readChunk(nextChunk++));
+            }
+            while (nextPrefetch < chunks && prefetched.size() <= prefetchDepth) {
+                int chunk = nextPrefetch++;
+                if (filter.test(chunk)) {
+                    prefetched.add(Prefetcher.EXECUTOR.submit(() -> store.readChunk(chunk)));
+                }
+            }
+            Future<ArrayList<E>> next = prefetched.poll();
+            if (next == null) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(next.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            nextChunk = chunks;
+            nextPrefetch = chunks;
+            for (Future<ArrayList<E>> future : prefetched) {
+                future.cancel(false);
+            }
+            // the prefetches which already started are waited for, so they don't read the storage after it is closed
+            Future<ArrayList<E>> future;
+            while ((future = prefetched.poll()) != null) {
+                if (future.isCancelled()) continue;
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException ignored) {
+                    // the chunk is not needed anymore
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the chunks from <code>fromChunk</code> (inclusive) to <code>toChunk</code> (exclusive), after the
+     * remaining elements of the current chunk. {@link #trySplit()} splits the chunks in half.
+     */
+    private static class ChunkSpliterator<E> implements Spliterator<E> {
+        private final Store<E> store;
+        private List<E> current;
+        private int position;
+        private int fromChunk;
+        private final int toChunk;
+
+        ChunkSpliterator(Store<E> store, @Nullable List<E> current, int position, int fromChunk, int toChunk) {
+            this.store = store;
+            this.current = current;
+            this.position = position;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        private boolean ensureCurrent() {
+            while (current == null || position >= current.size()) {
+                if (fromChunk >= toChunk) {
+                    current = null;
+                    return false;
+                }
+                current = store.readChunk(fromChunk++);
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (!ensureCurrent()) return false;
+            action.accept(current.get(position++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            while (ensureCurrent()) {
+                List<E> chunk = current;
+                int size = chunk.size();
+                while (position < size) {
+                    action.accept(chunk.get(position++));
+                }
+            }
+        }
+
+        @Override
+        public @Nullable Spliterator<E> trySplit() {
+            int mid = (fromChunk + toChunk) >>> 1;
+            if (mid <= fromChunk) return null;
+            // the prefix takes the rest of the current chunk, and the first half of the remaining chunks
+            ChunkSpliterator<E> prefix = new ChunkSpliterator<>(store, current, position, fromChunk, mid);
+            current = null;
+            position = 0;
+            fromChunk = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            long remaining = current == null ? 0 : current.size() - position;
+            return remaining + store.countElements(fromChunk, toChunk);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+
+    /**
+     * The threads used to read ahead the chunks, shared by all lists. The threads are created when needed and exit
+     * when idle.
+     */
+    private static class Prefetcher {
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "FileBasedCollectionList-Prefetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static class FileBasedCollectionSorter<E> {
+        private final FileBasedCollectionList<E> source;
+        private final int bucketSize;
+        private final Comparator<? super E> comparator;
+        private final ForkJoinPool pool;
+
+        FileBasedCollectionSorter(
+                FileBasedCollectionList<E> source,
+                final int bucketSize,
+                @Nullable Comparator<? super E> comparator,
+                ForkJoinPool pool) {
+            this.source = source;
+            this.bucketSize = bucketSize;
+            this.comparator = comparator != null ? comparator : (Comparator<? super E>) Comparator.naturalOrder();
+            this.pool = pool;
+        }
+
+        FileBasedCollectionList<E> sort() throws IOException {
+            List<ForkJoinTask<FileBasedCollectionList<E>>> tasks = new ArrayList<>();
+            List<FileBasedCollectionList<E>> runs = new ArrayList<>();
+            try {
+                try (FileBasedIterator<E> iterator = source.iterator()) {
+                    long remaining = source.getRealSize();
+                    while (iterator.hasNext()) {
+                        Object[] run = new Object[(int) Math.min(bucketSize, remaining)];
+                        int length = 0;
+                        while (length < run.length && iterator.hasNext()) {
+                            run[length++] = iterator.next();
+                        }
+                        remaining -= length;
+                        int runLength = length;
+                        tasks.add(pool.submit(() -> createRun(run, runLength)));
+                        // wait for the older runs, so only a limited number of runs are held in the memory
+                        int wait = tasks.size() - 1 - pool.getParallelism();
+                        if (wait >= 0) tasks.get(wait).join();
+                    }
+                }
+                for (ForkJoinTask<FileBasedCollectionList<E>> task : tasks) {
+                    runs.add(task.join());
+                }
+            } catch (RuntimeException | IOException e) {
+                // the runs not started yet are cancelled, and the running runs are waited for so they can be closed
+                for (ForkJoinTask<FileBasedCollectionList<E>> task : tasks) task.cancel(false);
+                for (ForkJoinTask<FileBasedCollectionList<E>> task : tasks) {
+                    try {
+                        task.join().close();
+                    } catch (RuntimeException ignored) {
+                        // cancelled or failed, so there is no run to close
+                    }
+                }
+                throw e;
+            }
+            if (runs.isEmpty()) return source;
+            if (runs.size() == 1) return runs.get(0);
+            return merge(runs);
+        }
+
+        private FileBasedCollectionList<E> createRun(Object[] elements, int length) {
+            E[] run = (E[]) elements;
+            Arrays.sort(run, 0, length, comparator);
+            FileBasedCollectionList<E> list = source.toBuilder().build();
+            try {
+                for (int i = 0; i < length; i++) {
+                    list.add(run[i]);
+                }
+                list.flush();
+            } catch (RuntimeException e) {
+                list.close();
+                throw e;
+            }
+            return list;
+        }
+
+        private FileBasedCollectionList<E> merge(List<FileBasedCollectionList<E>> runs) throws IOException {
+            FileBasedCollectionList<E> merged = source.toBuilder().build();
+            List<FileBasedIterator<E>> iterators = new ArrayList<>(runs.size());
+            // ties are broken by the run index to keep the sort stable
+            PriorityQueue<Head<E>> heads = new PriorityQueue<>(runs.size(), (a, b) -> {
+                int result = comparator.compare(a.value, b.value);
+                return result != 0 ? result : Integer.compare(a.run, b.run);
+            });
+            try {
+                try {
+                    for (int i = 0; i < runs.size(); i++) {
+                        FileBasedIterator<E> iterator = runs.get(i).iterator();
+                        iterators.add(iterator);
+                        if (iterator.hasNext()) {
+                            heads.add(new Head<>(iterator.next(), i));
+                        }
+                    }
+                    while (!heads.isEmpty()) {
+                        Head<E> head = heads.poll();
+                        merged.add(head.value);
+                        FileBasedIterator<E> iterator = iterators.get(head.run);
+                        if (iterator.hasNext()) {
+                            head.value = iterator.next();
+                            heads.add(head);
+                        }
+                    }
+                } finally {
+                    try {
+                        for (FileBasedIterator<E> iterator : iterators) {
+                            iterator.close();
+                        }
+                    } finally {
+                        runs.forEach(FileBasedCollectionList::close);
+                    }
+                }
+            } catch (RuntimeException | IOException e) {
+                merged.close();
+                throw e;
+            }
+            return merged;
+        }
+
+        private static class Head<E> {
+            private E value;
+            private final int run;
+
+            private Head(E value, int run) {
+                this.value = value;
+                this.run = run;
+            }
+        }
+    }
+
+    /**
+     * The backend used to write and read the chunks of the list.
+     */
+    public enum StoreType {
+        /**
+         * The chunks are written and read with the positional {@link FileChannel} operations. This is the default.
+         */
+        FILE_CHANNEL,
+        /**
+         * The chunks are written to and read from the {@link MappedByteBuffer memory-mapped} segments of the file.
+         * Iterators read straight from the mapped pages, so concurrent iterators share the page cache instead of
+         * holding their own buffers. Requires enough virtual address space to map the entire file.
+         */
+        MEMORY_MAPPED,
+    }
+
+    public static final class Builder<E> {
+        private int chunkSize = CHUNK_SIZE;
+        private StoreType storeType = StoreType.FILE_CHANNEL;
+        private ElementCodec<E> codec = null;
+        private int writeBehindQueueSize = 0;
+        private int prefetchDepth = 0;
+        private double compactionThreshold = 0.5;
+        private int bloomFilterBits = 0;
+        private Compression compression = Compression.SNAPPY;
+        private Path path = null;
+        private Path directory = null;
+
+        /**
+         * Sets the number of elements that a chunk can contain before being written to the disk.
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setChunkSize(int chunkSize) {
+            if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Sets the backend used to write and read the chunks.
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setStoreType(@NotNull StoreType storeType) {
+            this.storeType = Objects.requireNonNull(storeType, "storeType cannot be null");
+            return this;
+        }
+
+        /**
+         * Sets the codec used to write the elements. If null (default), the elements are written with the Java
+         * serialization.
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setCodec(@Nullable ElementCodec<E> codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * Sets the number of chunks that the iterators read and deserialize on a helper thread while the caller
+         * processes the current chunk. This overlaps the decompression with the work done by the caller on long scans
+         * like {@link #contains(Object)}, {@link #retainAll(Collection)} and {@link #addAll(Collection)}.
+         * @param prefetchDepth the number of chunks to read ahead, or 0 (default) to read the chunks on the calling
+         *                      thread
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setPrefetchDepth(int prefetchDepth) {
+            if (prefetchDepth < 0) throw new IllegalArgumentException("prefetchDepth cannot be negative");
+            this.prefetchDepth = prefetchDepth;
+            return this;
+        }
+
+        /**
+         * Enables the write-behind. When a chunk is full, it is handed to a background writer which serializes,
+         * compresses and writes the chunk while the caller keeps adding elements to the next chunk. Up to
+         * <code>queueSize</code> full chunks can wait for the writer, and adding more elements blocks until the
+         * writer catches up. {@link #iterator()}, {@link #get(int)} and {@link #close()} wait for the pending writes.
+         * @param queueSize the number of chunks that can wait for the writer, or 0 (default) to write the chunks on
+         *                  the calling thread
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setWriteBehindQueueSize(int queueSize) {
+            if (queueSize < 0) throw new IllegalArgumentException("queueSize cannot be negative");
+            this.writeBehindQueueSize = queueSize;
+            return this;
+        }
+
+        /**
+         * Sets the ratio of the live elements of a chunk below which the chunk is rewritten without the removed
+         * elements. The removed elements are only marked in their chunks, so removing a few elements from a large
+         * list doesn't rewrite the whole list.
+         * @param threshold the ratio from 0 to 1, or 0 to rewrite the chunks only by
+         *                  {@link FileBasedCollectionList#compact()}. The default
+         *                  is 0.5.
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setCompactionThreshold(double threshold) {
+            if (!(threshold >= 0 && threshold <= 1)) throw new IllegalArgumentException("threshold must be between 0 and 1");
+            this.compactionThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Enables the Bloom filter of the hash codes of the elements of each chunk, built when the chunk is written.
+         * {@link FileBasedCollectionList#contains(Object)} and
+         * {@link FileBasedCollectionList#containsAll(Collection)} skip the chunks whose filter rules out the value,
+         * without reading them. The filters are kept in the memory (and in the footer of the persistent files),
+         * taking <code>bitsPerElement / 8</code> bytes per element. The hash codes of the elements of the persistent
+         * lists must be the same in all processes, which is not true for enums and the classes using the identity
+         * hash code.
+         * @param bitsPerElement the number of the bits per element, or 0 (default) to disable the filters. 10 bits
+         *                       give about 1% false positives.
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setBloomFilterBits(int bitsPerElement) {
+            if (bitsPerElement < 0) throw new IllegalArgumentException("bitsPerElement cannot be negative");
+            this.bloomFilterBits = bitsPerElement;
+            return this;
+        }
+
+        /**
+         * Sets the compression of the chunks. The default is {@link Compression#SNAPPY}.
+         * @see FileBasedCollectionList#getCompressionStats()
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setCompression(@NotNull Compression compression) {
+            this.compression = Objects.requireNonNull(compression, "compression cannot be null");
+            return this;
+        }
+
+        /**
+         * Sets the file that the list is persisted to. The existing file is replaced. The file is kept after the list
+         * is closed, and can be reopened by {@link #open(Path)}. If null (default), the list is written to a temporary
+         * file which is deleted when the list is closed.
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setPath(@Nullable Path path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Sets the directory of the temporary files. If null (default), <code>java.io.tmpdir</code> is used.
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setDirectory(@Nullable Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        @Contract("-> new")
+        @NotNull
+        public FileBasedCollectionList<E> build() {
+            return new FileBasedCollectionList<>(this);
+        }
+
+        /**
+         * Creates a builder with the same settings as this builder, except the path, for the lists derived from a
+         * list built by this builder. If the path is set and the directory is not, the temporary files of the derived
+         * lists are created next to the path.
+         */
+        @Contract("-> new")
+        @NotNull
+        Builder<E> copy() {
+            return this.<E>newBuilder().setCodec(codec);
+        }
+
+        /**
+         * Creates a builder with the settings of this builder which don't depend on the element type, except the
+         * path.
+         * @see #copy()
+         */
+        @Contract("-> new")
+        @NotNull
+        <T> Builder<T> newBuilder() {
+            return new Builder<T>()
+                    .setChunkSize(chunkSize)
+                    .setStoreType(storeType)
+                    .setWriteBehindQueueSize(writeBehindQueueSize)
+                    .setPrefetchDepth(prefetchDepth)
+                    .setCompactionThreshold(compactionThreshold)
+                    .setBloomFilterBits(bloomFilterBits)
+                    .setCompression(compression)
+                    .setDirectory(directory != null || path == null ? directory : path.toAbsolutePath().getParent());
+        }
+
+        /**
+         * Reopens the file written by a persistent list. Only the header and the footer are read, so this doesn't
+         * depend on the number of the elements. The chunk size, the codec, the Bloom filters and the compression are
+         * read from the file. The codec set by {@link #setCodec(ElementCodec)} is required only if the file was not
+         * written with the Java serialization or one of the codecs defined in {@link ElementCodec}, and likewise the
+         * compression set by {@link #setCompression(Compression)}. The other settings are taken from this
+         * builder, and the new elements are appended to the file.
+         * @param path the file
+         * @return the list
+         * @throws IOException if the file could not be read, was not closed or persisted, or the codec doesn't match
+         */
+        @Contract("_ -> new")
+        @NotNull
+        public FileBasedCollectionList<E> open(@NotNull Path path) throws IOException {
+            Store<E> store = Store.open(this, path.toFile());
+            return new FileBasedCollectionList<>(setPath(path), store);
+        }
+    }
+
+    /**
+     * Reopens the file written by a persistent list.
+     * @see Builder#open(Path)
+     */
+    @Contract("_ -> new")
+    @NotNull
+    public static <E> FileBasedCollectionList<E> open(@NotNull Path path) throws IOException {
+        return new Builder<E>().open(path);
+    }
+
+    /**
+     * Reopens the file written by a persistent list with the codec.
+     * @see Builder#open(Path)
+     */
+    @Contract("_, _ -> new")
+    @NotNull
+    public static <E> FileBasedCollectionList<E> open(@NotNull Path path, @Nullable ElementCodec<E> codec) throws IOException {
+        return new Builder<E>().setCodec(codec).open(path);
+    }
+
+    @Contract("-> new")
+    @NotNull
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
     }
 
     @SafeVarargs
@@ -10,11 +10,13 @@ import util.Validate;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @SuppressWarnings("unchecked")
 public interface ICollection<K, V> extends Map<K, V>, DeepCloneable {
@@ -23,28 +25,42 @@ public interface ICollection<K, V> extends Map<K, V>, DeepCloneable {
      * @return First value of the collection
      */
     @Nullable
-    default V first() { return valuesList().first(); }
+    default V first() {
+        Iterator<V> iterator = values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
 
     /**
      * Returns first key of the collection.
      * @return First key of the collection
      */
     @Nullable
-    default K firstKey() { return keysList().first(); }
+    default K firstKey() {
+        Iterator<K> iterator = keySet().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
 
     /**
      * Returns last value of the collection.
      * @return Last value of the collection
      */
     @Nullable
-    default V last() { return valuesList().last(); }
+    default V last() {
+        V last = null;
+        for (V v : values()) last = v;
+        return last;
+    }
 
     /**
      * Returns last key of the collection.
      * @return Last key of the collection
      */
     @Nullable
-    default K lastKey() { return keysList().last(); }
+    default K lastKey() {
+        K last = null;
+        for (K k : keySet()) last = k;
+        return last;
+    }
 
     /**
      * Returns keys as array.
@@ -143,6 +159,23 @@ public interface ICollection<K, V> extends Map<K, V>, DeepCloneable {
 
     default V add(K key, V value) { return this.put(key, value); }
 
+    /**
+     * Adds the entry if the key is not associated with a value. This is atomic if the collection is thread-safe, like
+     * {@link ConcurrentCollection}.
+     * @return true if the entry was added
+     * @see #putIfAbsent(Object, Object)
+     */
+    default boolean addIfAbsent(K key, V value) { return this.putIfAbsent(key, value) == null; }
+
+    /**
+     * Returns the value associated with the key, or adds the value created by the supplier if the key is not
+     * associated with a value. This is atomic if the collection is thread-safe, like {@link ConcurrentCollection}, so
+     * the supplier is called at most once for each key.
+     * @return the current or the added value
+     * @see #computeIfAbsent(Object, Function)
+     */
+    default V getOrAdd(K key, @NotNull Supplier<? extends V> supplier) { return this.computeIfAbsent(key, k -> supplier.get()); }
+
     /**
      * Add all entries into collection then return this collection.
      * @param map Map that you want to add all entries into this list
@@ -294,19 +327,22 @@ public interface ICollection<K, V> extends Map<K, V>, DeepCloneable {
     @Nullable
     default V find(@NotNull K key) {
         Validate.notNull(key, "key cannot be null");
-        return this.filterKeys(k -> k.equals(key)).valuesList().first();
+        return this.get(key);
     }
 
     @Nullable
     default V find(@NotNull Predicate<? super K> predicate) {
-        Validate.notNull(predicate, "predicate cannot be null");
-        return this.filterKeys(predicate::test).first();
+        Entry<K, V> entry = findEntry(predicate);
+        return entry == null ? null : entry.getValue();
     }
 
     @Nullable
     default Entry<K, V> findEntry(@NotNull Predicate<? super K> predicate) {
         Validate.notNull(predicate, "predicate cannot be null");
-        return this.filterKeys(predicate::test).toEntryList().first();
+        for (Entry<K, V> entry : this.entrySet()) {
+            if (predicate.test(entry.getKey())) return entry;
+        }
+        return null;
     }
 
     static <K, V> @NotNull Collection<K, V> asCollection(Map<? extends K, ? extends V> map) {
@@ -315,8 +351,12 @@ public interface ICollection<K, V> extends Map<K, V>, DeepCloneable {
         return collection;
     }
 
+    static <K, V> @NotNull ConcurrentCollection<K, V> asConcurrentCollection(Map<? extends K, ? extends V> map) {
+        return new ConcurrentCollection<>(map);
+    }
+
     /**
-     * @deprecated high maintenance cost
+     * @deprecated high maintenance cost, use {@link #asConcurrentCollection(Map)}
      */
     @Deprecated
     static <K, V> Collection<K, V> asCollectionSync(Map<? extends K, ? extends V> map) {
@@ -326,7 +366,7 @@ public interface ICollection<K, V> extends Map<K, V>, DeepCloneable {
     }
 
     /**
-     * @deprecated high maintenance cost
+     * @deprecated high maintenance cost, use {@link #asConcurrentCollection(Map)}
      */
     @Deprecated
     static <K, V> Collection<K, V> asCollectionStrictSync(Map<? extends K, ? extends V> map) {
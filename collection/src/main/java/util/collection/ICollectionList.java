@@ -22,11 +22,14 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -72,11 +75,11 @@ public interface ICollectionList<V> extends List<V>, DeepCloneable, Chain<IColle
     default ICollectionList<V> addChain(@NotNull V v) { return this.thenAdd(v); }
 
     /**
-     * Returns first value of list.
+     * Returns first value of list. This doesn't copy the list.
      * @return First value of list. Null if size is 0.
      */
     @Nullable
-    default V first() { return this.length() == 0 ? null : this.valuesArray()[0]; }
+    default V first() { return this.isEmpty() ? null : this.get(0); }
 
     /**
      * Returns values as array.
@@ -87,11 +90,14 @@ public interface ICollectionList<V> extends List<V>, DeepCloneable, Chain<IColle
     default V[] valuesArray() { return (V[]) this.toArray(); }
 
     /**
-     * Returns last value of list.
+     * Returns last value of list. This doesn't copy the list.
      * @return Last value of list. Null if size is 0.
      */
     @Nullable
-    default V last() { return this.length() == 0 ? null : this.valuesArray()[this.length()-1]; }
+    default V last() {
+        int size = this.size();
+        return size == 0 ? null : this.get(size - 1);
+    }
 
     /**
      * Foreach all values.
@@ -217,6 +223,17 @@ public interface ICollectionList<V> extends List<V>, DeepCloneable, Chain<IColle
     @Contract("_ -> this")
     default ICollectionList<V> putAll(@Nullable ICollectionList<V> list) { return this.addAll(list); }
 
+    /**
+     * Returns the lazy view of this list. Unlike {@link #filter(Function)} and {@link #map(Function)} on this list,
+     * the chain of the operations on the view doesn't create the intermediate lists, and the values are evaluated one
+     * by one only when the result is needed.
+     * @return the view of this list
+     * @see CollectionView
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    default CollectionView<V> view() { return CollectionView.of(this); }
+
     /**
      * Filters values. If returned true, that value will be kept.
      * @param filter filter function.
@@ -578,22 +595,30 @@ public interface ICollectionList<V> extends List<V>, DeepCloneable, Chain<IColle
 
     @NotNull
     @Override
-    default ListIterator<V> listIterator() { return this.toList().listIterator(); }
+    default ListIterator<V> listIterator() { return this.listIterator(0); }
 
+    /**
+     * Returns the iterator which reads this list by the index, without copying the list. The implementations which
+     * have the faster way to iterate should override this method.
+     */
     @NotNull
     @Override
-    default Iterator<V> iterator() { return this.toList().iterator(); }
+    default Iterator<V> iterator() { return this.listIterator(0); }
 
     @Override
-    default Spliterator<V> spliterator() { return this.toList().spliterator(); }
+    default Spliterator<V> spliterator() { return Spliterators.spliterator(this, Spliterator.ORDERED); }
 
+    /**
+     * Returns the list iterator which reads and writes this list by the index, without copying the list. Use
+     * {@link #toList()} to iterate over the snapshot of the list.
+     */
     @NotNull
     @Override
-    default ListIterator<V> listIterator(int index) { return this.toList().listIterator(index); }
+    default ListIterator<V> listIterator(int index) { return new ListAdapter<>(this).listIterator(index); }
 
     @NotNull
     @Override
-    default ICollectionList<V> subList(int fromIndex, int toIndex) { return newList(this.toList().subList(fromIndex, toIndex)); }
+    default ICollectionList<V> subList(int fromIndex, int toIndex) { return newList(new ListAdapter<>(this).subList(fromIndex, toIndex)); }
 
     /**
      * The concat() method is used to merge two or more arrays.
@@ -637,11 +662,11 @@ public interface ICollectionList<V> extends List<V>, DeepCloneable, Chain<IColle
     default ICollectionList<V> nonNull() { return this.clone().filter(Objects::nonNull); }
 
     /**
-     * Just returns list.
+     * Returns the snapshot of this list. The changes made to the returned list are not reflected to this list.
      * @return Returns list.
      */
     @NotNull
-    @Contract("-> this")
+    @Contract(value = "-> new", pure = true)
     default List<V> toList() { return this.clone(); }
 
     /**
@@ -789,6 +814,153 @@ public interface ICollectionList<V> extends List<V>, DeepCloneable, Chain<IColle
         return this.sorted((Comparator<V>) Comparator.naturalOrder());
     }
 
+    /**
+     * Maps the values with the function on the {@link Parallelism#DEFAULT default} pool.
+     * @see #parallelMap(Parallelism, BiFunction)
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    default <T> ICollectionList<T> parallelMap(@NotNull Function<V, T> function) {
+        return parallelMap(Parallelism.DEFAULT, (v, i) -> function.apply(v));
+    }
+
+    /**
+     * Maps the values with the function on the {@link Parallelism#DEFAULT default} pool.
+     * @see #parallelMap(Parallelism, BiFunction)
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    default <T> ICollectionList<T> parallelMap(@NotNull BiFunction<V, Integer, T> function) {
+        return parallelMap(Parallelism.DEFAULT, function);
+    }
+
+    @NotNull
+    @Contract(value = "_, _ -> new", pure = true)
+    default <T> ICollectionList<T> parallelMap(@NotNull Parallelism parallelism, @NotNull Function<V, T> function) {
+        return parallelMap(parallelism, (v, i) -> function.apply(v));
+    }
+
+    /**
+     * Maps the values with the function in parallel. The function may be called from multiple threads at once, but
+     * the returned list has the same order as this list.
+     * @param parallelism the pool and the threshold to use
+     * @param function Function that will run to create a new value, which receives the value and its index.
+     * @return New list with new type.
+     */
+    @NotNull
+    @Contract(value = "_, _ -> new", pure = true)
+    default <T> ICollectionList<T> parallelMap(@NotNull Parallelism parallelism, @NotNull BiFunction<V, Integer, T> function) {
+        ICollectionList<T> newList = createList();
+        newList.addAll(ParallelOperations.map(parallelism, this, function));
+        return newList;
+    }
+
+    /**
+     * Filters values on the {@link Parallelism#DEFAULT default} pool.
+     * @see #parallelFilter(Parallelism, BiPredicate)
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    default ICollectionList<V> parallelFilter(@NotNull Function<V, Boolean> filter) {
+        return parallelFilter(Parallelism.DEFAULT, (v, i) -> filter.apply(v));
+    }
+
+    /**
+     * Filters values on the {@link Parallelism#DEFAULT default} pool.
+     * @see #parallelFilter(Parallelism, BiPredicate)
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    default ICollectionList<V> parallelFilter(@NotNull BiPredicate<V, Integer> filter) {
+        return parallelFilter(Parallelism.DEFAULT, filter);
+    }
+
+    @NotNull
+    @Contract(value = "_, _ -> new", pure = true)
+    default ICollectionList<V> parallelFilter(@NotNull Parallelism parallelism, @NotNull Function<V, Boolean> filter) {
+        return parallelFilter(parallelism, (v, i) -> filter.apply(v));
+    }
+
+    /**
+     * Filters values in parallel. If returned true, that value will be kept. The filter may be called from multiple
+     * threads at once, but the returned list has the same order as this list.
+     * @param parallelism the pool and the threshold to use
+     * @param filter filter function, which receives the value and its index.
+     * @return New filtered list
+     */
+    @NotNull
+    @Contract(value = "_, _ -> new", pure = true)
+    default ICollectionList<V> parallelFilter(@NotNull Parallelism parallelism, @NotNull BiPredicate<V, Integer> filter) {
+        return newList(ParallelOperations.filter(parallelism, this, filter));
+    }
+
+    /**
+     * Maps the values to the lists on the {@link Parallelism#DEFAULT default} pool, and joins them.
+     * @see #parallelFlatMap(Parallelism, Function)
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    default <T> ICollectionList<T> parallelFlatMap(@NotNull Function<V, ? extends List<? extends T>> function) {
+        return parallelFlatMap(Parallelism.DEFAULT, function);
+    }
+
+    /**
+     * Maps the values to the lists in parallel, and joins them in the order of this list.
+     * @param parallelism the pool and the threshold to use
+     * @param function Function that will run to create the values. The null lists are ignored.
+     * @return New list with new type.
+     */
+    @NotNull
+    @Contract(value = "_, _ -> new", pure = true)
+    default <T> ICollectionList<T> parallelFlatMap(@NotNull Parallelism parallelism, @NotNull Function<V, ? extends List<? extends T>> function) {
+        ICollectionList<T> newList = createList();
+        newList.addAll(ParallelOperations.flatMap(parallelism, this, (v, i) -> function.apply(v)));
+        return newList;
+    }
+
+    /**
+     * Merges the values into the one on the {@link Parallelism#DEFAULT default} pool.
+     * @see #parallelReduce(Parallelism, Object, BiFunction, BinaryOperator)
+     */
+    default <U> U parallelReduce(@Nullable U identity, @NotNull BiFunction<U, V, U> accumulator, @NotNull BinaryOperator<U> combiner) {
+        return parallelReduce(Parallelism.DEFAULT, identity, accumulator, combiner);
+    }
+
+    /**
+     * Merges the values into the one in parallel. Each range of the list is merged into the identity with the
+     * accumulator, and the results of the adjacent ranges are merged with the combiner, in the order of this list.
+     * @param parallelism the pool and the threshold to use
+     * @param identity the initial value of each range, which must not change the result when combined
+     * @param accumulator the function to merge the value into the result of the range
+     * @param combiner the function to merge the results of two ranges
+     * @see java.util.stream.Stream#reduce(Object, BiFunction, BinaryOperator)
+     */
+    default <U> U parallelReduce(@NotNull Parallelism parallelism, @Nullable U identity, @NotNull BiFunction<U, V, U> accumulator, @NotNull BinaryOperator<U> combiner) {
+        return ParallelOperations.reduce(parallelism, this, identity, accumulator, combiner);
+    }
+
+    /**
+     * Sorts the list on the {@link Parallelism#DEFAULT default} pool.
+     * @see #parallelSorted(Parallelism, Comparator)
+     */
+    @NotNull
+    default ICollectionList<V> parallelSorted(@NotNull Comparator<? super V> comparator) {
+        return parallelSorted(Parallelism.DEFAULT, comparator);
+    }
+
+    /**
+     * Sorts the list in parallel with {@link java.util.Arrays#parallelSort(Object[], Comparator)}. Like
+     * {@link #sorted(Comparator)}, this list is sorted and returned.
+     * @param parallelism the pool and the threshold to use
+     * @param comparator the comparator
+     * @return this list
+     */
+    @NotNull
+    default ICollectionList<V> parallelSorted(@NotNull Parallelism parallelism, @NotNull Comparator<? super V> comparator) {
+        ParallelOperations.sort(parallelism, this, comparator);
+        return this;
+    }
+
     /**
      * Converts list into byte array.
      * The element must be number.
@@ -821,16 +993,75 @@ public interface ICollectionList<V> extends List<V>, DeepCloneable, Chain<IColle
     @NotNull
     @Contract(pure = true)
     default ICollectionList<ICollectionList<V>> split(int max) {
+        if (max <= 0) throw new IllegalArgumentException("max must be positive");
         CollectionList<ICollectionList<V>> list = new CollectionList<>();
-        this.foreach((v, i) -> {
-            if (i % max == 0) {
-                list.add(new CollectionList<>());
+        CollectionList<V> current = null;
+        for (V v : this) {
+            if (current == null || current.size() == max) {
+                current = new CollectionList<>();
+                list.add(current);
             }
-            Objects.requireNonNull(list.last()).add(v);
-        });
+            current.add(v);
+        }
         return list;
     }
 
+    /**
+     * Returns the lazy view of the batches of this list. Each batch has <code>size</code> elements, except the last
+     * batch which has the rest. Unlike {@link #split(int)}, the batches are created one by one while the view is
+     * iterated.
+     * <p>If this list is {@link java.util.RandomAccess RandomAccess}, the batches are the views of the ranges of this
+     * list and nothing is copied. Otherwise, each batch is a new list.
+     * @param size the number of the elements in each batch
+     * @return the view of the batches
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    default CollectionView<List<V>> batches(int size) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+        return CollectionView.of(() -> Batches.batches(this, size));
+    }
+
+    /**
+     * Returns the lazy view of the sliding windows of this list. Each window has <code>size</code> elements and
+     * starts <code>step</code> elements after the previous window. The elements at the end of this list which don't
+     * fill a window are not returned, so the view is empty if this list has less than <code>size</code> elements.
+     * <p>If this list is {@link java.util.RandomAccess RandomAccess}, the windows are the views of the ranges of this
+     * list and nothing is copied.
+     * @param size the number of the elements in each window
+     * @param step the distance between the starts of the windows
+     * @return the view of the windows
+     * @throws IllegalArgumentException if the size or the step is not positive
+     */
+    @NotNull
+    @Contract(value = "_, _ -> new", pure = true)
+    default CollectionView<List<V>> windows(int size, int step) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+        if (step <= 0) throw new IllegalArgumentException("step must be positive");
+        return CollectionView.of(() -> Batches.windows(this, size, step));
+    }
+
+    /**
+     * Returns the lazy view of the batches of this list, each of which is closed when it has <code>maxSize</code>
+     * elements, or when the timeout has elapsed since the batch started to read the elements. The timeout bounds the
+     * time spent on a batch when reading the elements is slow (for example, the chunks of a
+     * {@link FileBasedCollectionList} are read from the disk). Each batch is a new list.
+     * @param maxSize the maximum number of the elements in each batch
+     * @param timeout the maximum time to fill each batch
+     * @param unit the unit of the timeout
+     * @return the view of the batches
+     * @throws IllegalArgumentException if the size or the timeout is not positive
+     */
+    @NotNull
+    @Contract(value = "_, _, _ -> new", pure = true)
+    default CollectionView<List<V>> batchesUntil(int maxSize, long timeout, @NotNull TimeUnit unit) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+        if (timeout <= 0) throw new IllegalArgumentException("timeout must be positive");
+        long timeoutNanos = Objects.requireNonNull(unit, "unit cannot be null").toNanos(timeout);
+        return CollectionView.of(() -> Batches.batchesUntil(this.iterator(), maxSize, timeoutNanos));
+    }
+
     // ===== Static Methods
 
     /**
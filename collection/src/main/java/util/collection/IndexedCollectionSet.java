@@ -0,0 +1,417 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * The {@link ICollectionList} which doesn't contain the duplicate elements, like the {@link CollectionSet}, but
+ * keeps the elements in the insertion order. The elements are kept in an array, and the position of each element is
+ * kept in a {@link HashMap}, so {@link #contains(Object)}, {@link #indexOf(Object)}, {@link #get(int)},
+ * {@link #first()} and {@link #last()} take constant time, and the list can be paged without copying it.
+ * <p>{@link #remove(int)} and {@link #remove(Object)} keep the order of the other elements, so they take linear
+ * time. {@link #swapRemove(int)} and {@link #swapRemove(Object)} move the last element into the removed position
+ * instead, and take constant time.
+ * <p>Adding an element which is already in the list with {@link #add(Object)} does nothing, but
+ * {@link #add(int, Object)} and {@link #set(int, Object)} throw {@link IllegalArgumentException} since they can't
+ * report it.
+ */
+public class IndexedCollectionSet<V> extends AbstractCollectionList<V> implements ICollectionList<V>, RandomAccess {
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] elements;
+    private int size = 0;
+    private final HashMap<Object, Integer> positions;
+
+    /**
+     * Constructs an empty set.
+     */
+    public IndexedCollectionSet() {
+        this.elements = EMPTY;
+        this.positions = new HashMap<>();
+    }
+
+    /**
+     * Constructs an empty set with the specified initial capacity.
+     * @param initialCapacity the expected number of the elements
+     */
+    public IndexedCollectionSet(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity cannot be negative");
+        this.elements = initialCapacity == 0 ? EMPTY : new Object[initialCapacity];
+        this.positions = new HashMap<>(Math.max((int) (initialCapacity / .75f) + 1, 16));
+    }
+
+    /**
+     * Constructs this set with the distinct elements of the collection, in the iteration order of the collection.
+     * @param collection will be added with this constructor
+     */
+    public IndexedCollectionSet(@NotNull java.util.Collection<? extends V> collection) {
+        this(collection.size());
+        this.addAll(collection);
+    }
+
+    @SafeVarargs
+    @NotNull
+    @Contract("_ -> new")
+    public static <T> IndexedCollectionSet<T> of(@NotNull T... t) {
+        return new IndexedCollectionSet<>(Arrays.asList(t));
+    }
+
+    /**
+     * Increases the capacity of this set, if necessary, so it can hold the number of the elements without growing
+     * the array.
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= elements.length) return;
+        elements = Arrays.copyOf(elements, Math.max(minCapacity, elements.length + (elements.length >> 1)));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Updates the positions of the elements from <code>from</code> to the end.
+     */
+    private void reindex(int from) {
+        for (int i = from; i < size; i++) positions.put(elements[i], i);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return positions.containsKey(o);
+    }
+
+    @Override
+    public boolean containsAll(@NotNull java.util.Collection<?> c) {
+        for (Object o : c) if (!positions.containsKey(o)) return false;
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Integer index = positions.get(o);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(int index) {
+        checkIndex(index);
+        return (V) elements[index];
+    }
+
+    /**
+     * Appends the element to the end of this set if it isn't in this set yet.
+     * @return true if the element was added
+     */
+    @Override
+    public boolean add(V v) {
+        if (positions.putIfAbsent(v, size) != null) return false;
+        ensureCapacity(size + 1);
+        elements[size++] = v;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the element is already in this set
+     */
+    @Override
+    public void add(int index, V element) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (positions.containsKey(element)) throw new IllegalArgumentException("Duplicate element: " + element);
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+        reindex(index);
+    }
+
+    @Override
+    public boolean addAll(@NotNull java.util.Collection<? extends V> c) {
+        ensureCapacity(size + c.size());
+        boolean changed = false;
+        for (V v : c) changed |= add(v);
+        return changed;
+    }
+
+    /**
+     * Inserts the elements which aren't in this set yet at the index, in the iteration order of the collection.
+     * @return true if any element was added
+     */
+    @Override
+    public boolean addAll(int index, @NotNull java.util.Collection<? extends V> c) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (index == size) return addAll(c);
+        IndexedCollectionSet<V> added = new IndexedCollectionSet<>(c.size());
+        for (V v : c) if (!positions.containsKey(v)) added.add(v);
+        if (added.size == 0) return false;
+        ensureCapacity(size + added.size);
+        System.arraycopy(elements, index, elements, index + added.size, size - index);
+        System.arraycopy(added.elements, 0, elements, index, added.size);
+        size += added.size;
+        reindex(index);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the element is already in this set at the other index
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V set(int index, V element) {
+        checkIndex(index);
+        V old = (V) elements[index];
+        Integer at = positions.get(element);
+        if (at != null && at != index) throw new IllegalArgumentException("Duplicate element: " + element);
+        positions.remove(old);
+        positions.put(element, index);
+        elements[index] = element;
+        return old;
+    }
+
+    /**
+     * Removes the element at the index, and shifts the subsequent elements to the left. This takes linear time.
+     * @see #swapRemove(int)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(int index) {
+        checkIndex(index);
+        V removed = (V) elements[index];
+        positions.remove(removed);
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        reindex(index);
+        return removed;
+    }
+
+    /**
+     * Removes the element, and shifts the subsequent elements to the left. This takes linear time.
+     * @see #swapRemove(Object)
+     */
+    @Override
+    public boolean remove(Object o) {
+        Integer index = positions.get(o);
+        if (index == null) return false;
+        remove((int) index);
+        return true;
+    }
+
+    /**
+     * Removes the element at the index, and moves the last element into its position. This takes constant time, but
+     * changes the order of the elements.
+     * @param index the index of the element to remove
+     * @return the removed element
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public V swapRemove(int index) {
+        checkIndex(index);
+        V removed = (V) elements[index];
+        positions.remove(removed);
+        int last = --size;
+        if (index != last) {
+            elements[index] = elements[last];
+            positions.put(elements[index], index);
+        }
+        elements[last] = null;
+        return removed;
+    }
+
+    /**
+     * Removes the element, and moves the last element into its position. This takes constant time, but changes the
+     * order of the elements.
+     * @param o the element to remove
+     * @return true if the element was in this set
+     */
+    public boolean swapRemove(@Nullable Object o) {
+        Integer index = positions.get(o);
+        if (index == null) return false;
+        swapRemove((int) index);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean removeIf(@NotNull Predicate<? super V> filter) {
+        Objects.requireNonNull(filter, "filter cannot be null");
+        int w = 0;
+        for (int r = 0; r < size; r++) {
+            V v = (V) elements[r];
+            if (filter.test(v)) {
+                positions.remove(v);
+            } else {
+                if (w != r) {
+                    elements[w] = v;
+                    positions.put(v, w);
+                }
+                w++;
+            }
+        }
+        if (w == size) return false;
+        Arrays.fill(elements, w, size, null);
+        size = w;
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(@NotNull java.util.Collection<?> c) {
+        Objects.requireNonNull(c, "c cannot be null");
+        return removeIf(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(@NotNull java.util.Collection<?> c) {
+        Objects.requireNonNull(c, "c cannot be null");
+        return removeIf(v -> !c.contains(v));
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        positions.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void sort(@Nullable Comparator<? super V> c) {
+        Arrays.sort((V[]) elements, 0, size, c);
+        reindex(0);
+    }
+
+    /**
+     * Returns the reversed copy of this set. The elements are moved in the array, since {@link #set(int, Object)}
+     * rejects the duplicate elements.
+     */
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public IndexedCollectionSet<V> reverse() {
+        IndexedCollectionSet<V> set = clone();
+        Collections.reverse(Arrays.asList(set.elements).subList(0, size));
+        set.reindex(0);
+        return set;
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public IndexedCollectionSet<V> shuffle() {
+        IndexedCollectionSet<V> set = clone();
+        Collections.shuffle(Arrays.asList(set.elements).subList(0, size));
+        set.reindex(0);
+        return set;
+    }
+
+    /**
+     * Sorts this set in parallel, and returns this set.
+     * @see ICollectionList#parallelSorted(Parallelism, Comparator)
+     */
+    @SuppressWarnings("unchecked")
+    @NotNull
+    @Override
+    public IndexedCollectionSet<V> parallelSorted(@NotNull Parallelism parallelism, @NotNull Comparator<? super V> comparator) {
+        ParallelOperations.sort(parallelism, (V[]) elements, 0, size, comparator);
+        reindex(0);
+        return this;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Returns the copy of this set, since the elements are already distinct.
+     */
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public IndexedCollectionSet<V> unique() {
+        return clone();
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public IndexedCollectionSet<V> newList() {
+        return new IndexedCollectionSet<>();
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public IndexedCollectionSet<V> newList(@Nullable java.util.Collection<? extends V> list) {
+        return list == null ? new IndexedCollectionSet<>() : new IndexedCollectionSet<>(list);
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public <E> IndexedCollectionSet<E> createList() {
+        return new IndexedCollectionSet<>();
+    }
+
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @NotNull
+    @Override
+    @Contract("-> new")
+    public IndexedCollectionSet<V> clone() {
+        IndexedCollectionSet<V> set = new IndexedCollectionSet<>();
+        set.elements = Arrays.copyOf(elements, size);
+        set.size = size;
+        set.positions.putAll(positions);
+        return set;
+    }
+
+    /**
+     * Compares the elements in order, like the {@link List#equals(Object)}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof List)) return false;
+        List<?> list = (List<?>) o;
+        if (list.size() != size) return false;
+        Iterator<?> it = list.iterator();
+        for (int i = 0; i < size; i++) if (!Objects.equals(elements[i], it.next())) return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++) hashCode = 31 * hashCode + Objects.hashCode(elements[i]);
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
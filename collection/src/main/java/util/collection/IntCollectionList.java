@@ -0,0 +1,480 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import util.magic.Magic;
+
+import java.io.Serializable;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * The list of <code>int</code> values, backed by an <code>int[]</code> array. Unlike
+ * <code>CollectionList&lt;Integer&gt;</code>, the values are not boxed, so the list uses several times less memory
+ * and the methods like {@link #map(IntUnaryOperator)} and {@link #sum()} don't allocate per value.
+ * <p>The methods follow {@link ICollectionList}: {@link #map(IntUnaryOperator)}, {@link #filter(IntPredicate)},
+ * {@link #slice(int, int)}, {@link #shuffle()} and {@link #reverse()} return a new list, and {@link #sorted()} sorts
+ * this list and returns it. Use {@link #boxed()} to get the values as the {@link CollectionList}.
+ */
+public class IntCollectionList implements Iterable<Integer>, RandomAccess, Cloneable, Serializable {
+    private static final long serialVersionUID = Magic.VERSION;
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values;
+    private int size;
+
+    public IntCollectionList() {
+        this.values = EMPTY;
+    }
+
+    /**
+     * Creates the empty list which can hold <code>capacity</code> values without growing.
+     * @param capacity the initial capacity
+     */
+    public IntCollectionList(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity cannot be negative");
+        this.values = capacity == 0 ? EMPTY : new int[capacity];
+    }
+
+    private IntCollectionList(int @NotNull [] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Creates the list containing the copy of the values.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static IntCollectionList of(int @NotNull ... values) {
+        return new IntCollectionList(values.clone(), values.length);
+    }
+
+    /**
+     * Creates the list using the array as the storage, without copying it. The changes made to the array are
+     * visible to the list until the list grows.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static IntCollectionList wrap(int @NotNull [] values) {
+        return new IntCollectionList(values, values.length);
+    }
+
+    /**
+     * Creates the list from the numbers, using {@link Number#intValue()}.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static IntCollectionList from(@NotNull java.util.Collection<? extends Number> numbers) {
+        IntCollectionList list = new IntCollectionList(numbers.size());
+        for (Number number : numbers) list.add(number.intValue());
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, Math.max(10, values.length + (values.length >> 1))));
+        }
+    }
+
+    public int get(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Replaces the value at the index.
+     * @return the previous value
+     */
+    public int set(int index, int value) {
+        checkIndex(index);
+        int old = values[index];
+        values[index] = value;
+        return old;
+    }
+
+    public void add(int value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    public void add(int index, int value) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        ensureCapacity(size + 1);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    public void addAll(int @NotNull ... values) {
+        addAll(values, 0, values.length);
+    }
+
+    public void addAll(@NotNull IntCollectionList list) {
+        addAll(list.values, 0, list.size);
+    }
+
+    private void addAll(int @NotNull [] values, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(values, offset, this.values, size, length);
+        size += length;
+    }
+
+    /**
+     * Removes the value at the index.
+     * @return the removed value
+     */
+    public int removeAt(int index) {
+        checkIndex(index);
+        int old = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    /**
+     * Removes the values matching the filter.
+     * @return true if any value was removed
+     */
+    public boolean removeIf(@NotNull IntPredicate filter) {
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test(values[i])) values[newSize++] = values[i];
+        }
+        boolean removed = newSize != size;
+        size = newSize;
+        return removed;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Shrinks the storage to the size of the list.
+     */
+    public void trimToSize() {
+        if (values.length != size) values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) return i;
+        }
+        return -1;
+    }
+
+    public int lastIndexOf(int value) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (values[i] == value) return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) != -1;
+    }
+
+    /**
+     * Simple redirection to the {@link #contains(int)}.
+     */
+    public boolean includes(int value) {
+        return contains(value);
+    }
+
+    /**
+     * Returns the first value, or empty if the list is empty.
+     */
+    @NotNull
+    public OptionalInt first() {
+        return size == 0 ? OptionalInt.empty() : OptionalInt.of(values[0]);
+    }
+
+    /**
+     * Returns the last value, or empty if the list is empty.
+     */
+    @NotNull
+    public OptionalInt last() {
+        return size == 0 ? OptionalInt.empty() : OptionalInt.of(values[size - 1]);
+    }
+
+    /**
+     * Runs the action for each value, without boxing the values.
+     */
+    public void forEachInt(@NotNull IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    /**
+     * Maps the values with the function.
+     * @param function Function that will run to create a new value.
+     * @return New list
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public IntCollectionList map(@NotNull IntUnaryOperator function) {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = function.applyAsInt(values[i]);
+        }
+        return new IntCollectionList(result, size);
+    }
+
+    /**
+     * Maps the values to the objects with the function.
+     * @param function Function that will run to create a new value.
+     * @return New list with new type.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public <T> CollectionList<T> mapToObj(@NotNull IntFunction<T> function) {
+        CollectionList<T> list = new CollectionList<>();
+        list.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            list.add(function.apply(values[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Filters values. If returned true, that value will be kept.
+     * @param filter filter function.
+     * @return New filtered list
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public IntCollectionList filter(@NotNull IntPredicate filter) {
+        IntCollectionList list = new IntCollectionList();
+        for (int i = 0; i < size; i++) {
+            if (filter.test(values[i])) list.add(values[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Merges the values into the one.
+     * @param operator the function to be run, which receives the value previously returned and the value
+     * @param initialValue the initial value
+     */
+    public int reduce(@NotNull IntBinaryOperator operator, int initialValue) {
+        int result = initialValue;
+        for (int i = 0; i < size; i++) {
+            result = operator.applyAsInt(result, values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sum of the values as long, so it doesn't overflow.
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the average of the values, or empty if the list is empty.
+     */
+    @NotNull
+    public OptionalDouble average() {
+        return size == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum() / size);
+    }
+
+    /**
+     * Sorts this list in the ascending order.
+     * @return this list
+     */
+    @Contract("-> this")
+    @NotNull
+    public IntCollectionList sorted() {
+        Arrays.sort(values, 0, size);
+        return this;
+    }
+
+    /**
+     * Returns the shuffled copy of this list.
+     * @return shuffled new list
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public IntCollectionList shuffle() {
+        IntCollectionList list = clone();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = list.values[i];
+            list.values[i] = list.values[j];
+            list.values[j] = tmp;
+        }
+        return list;
+    }
+
+    /**
+     * Returns the reversed copy of this list.
+     * @return Flipped list
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public IntCollectionList reverse() {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = values[size - i - 1];
+        }
+        return new IntCollectionList(result, size);
+    }
+
+    /**
+     * Returns the values from the start.
+     * @see ICollectionList#slice(int)
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public IntCollectionList slice(int start) {
+        return slice(start, size);
+    }
+
+    /**
+     * Returns the values from the start to the end (end not included).
+     * @see ICollectionList#slice(int, int)
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    @NotNull
+    public IntCollectionList slice(int start, int end) {
+        int from = Math.max(0, Math.min(start, size));
+        int to = Math.max(from, Math.min(end, size));
+        return new IntCollectionList(Arrays.copyOfRange(values, from, to), to - from);
+    }
+
+    /**
+     * Joins the values with a comma.
+     */
+    @NotNull
+    public String join() {
+        return join(null);
+    }
+
+    /**
+     * Joins the values with the separator.
+     * @param s the separator, or null to use a comma
+     */
+    @NotNull
+    public String join(String s) {
+        String separator = s == null ? "," : s;
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i != 0) str.append(separator);
+            str.append(values[i]);
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns the copy of the values.
+     */
+    @Contract(value = "-> new", pure = true)
+    public int @NotNull [] toIntArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns the buffer sharing the storage of this list, without copying the values. The changes made to the
+     * buffer are visible to the list and vice versa, until the list grows.
+     */
+    @NotNull
+    public IntBuffer asIntBuffer() {
+        return IntBuffer.wrap(values, 0, size).slice();
+    }
+
+    @NotNull
+    public IntStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    /**
+     * Returns the values as the boxed list.
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public CollectionList<Integer> boxed() {
+        return mapToObj(Integer::valueOf);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= size) throw new NoSuchElementException();
+                return values[index++];
+            }
+        };
+    }
+
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @Override
+    public IntCollectionList clone() {
+        return new IntCollectionList(Arrays.copyOf(values, size), size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntCollectionList)) return false;
+        IntCollectionList that = (IntCollectionList) o;
+        if (size != that.size) return false;
+        for (int i = 0; i < size; i++) {
+            if (values[i] != that.values[i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Integer.hashCode(values[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + join(", ") + "]";
+    }
+}
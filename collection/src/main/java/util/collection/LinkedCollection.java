@@ -0,0 +1,353 @@
+package util.collection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import util.DeepCloneable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * The {@link ICollection} which keeps the entries in the insertion order, like the
+ * {@link java.util.LinkedHashMap LinkedHashMap}. Replacing the value of an existing key doesn't change the order.
+ * <p>Unlike the {@link java.util.LinkedHashMap LinkedHashMap} of Java 8, this collection keeps both ends of the
+ * order, so {@link #first()}, {@link #last()}, {@link #firstKey()}, {@link #lastKey()}, {@link #pollFirst()} and
+ * {@link #pollLast()} take constant time.
+ */
+public class LinkedCollection<K, V> extends AbstractMap<K, V> implements ICollection<K, V>, Cloneable {
+    private final HashMap<K, Node<K, V>> nodes;
+    @Nullable
+    private Node<K, V> head;
+    @Nullable
+    private Node<K, V> tail;
+    private int modCount = 0;
+
+    /**
+     * Constructs an empty collection with the default initial capacity (16).
+     */
+    public LinkedCollection() {
+        this.nodes = new HashMap<>();
+    }
+
+    /**
+     * Constructs an empty collection with the specified initial capacity.
+     */
+    public LinkedCollection(int size) {
+        this.nodes = new HashMap<>(size);
+    }
+
+    /**
+     * Constructs this collection with values, in the iteration order of the map.
+     * @param map will be added with this constructor
+     */
+    public LinkedCollection(@NotNull Map<? extends K, ? extends V> map) {
+        this(map.size());
+        this.putAll(map);
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return nodes.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = nodes.get(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        Node<K, V> node = nodes.get(key);
+        return node == null ? defaultValue : node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Node<K, V> node = nodes.get(key);
+        if (node != null) return node.setValue(value);
+        node = new Node<>(key, value);
+        nodes.put(key, node);
+        node.prev = tail;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = nodes.remove(key);
+        if (node == null) return null;
+        unlink(node);
+        return node.value;
+    }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+        head = tail = null;
+        modCount++;
+    }
+
+    private void unlink(@NotNull Node<K, V> node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = node.next = null;
+        modCount++;
+    }
+
+    @Nullable
+    @Override
+    public V first() {
+        return head == null ? null : head.value;
+    }
+
+    @Nullable
+    @Override
+    public K firstKey() {
+        return head == null ? null : head.key;
+    }
+
+    @Nullable
+    @Override
+    public V last() {
+        return tail == null ? null : tail.value;
+    }
+
+    @Nullable
+    @Override
+    public K lastKey() {
+        return tail == null ? null : tail.key;
+    }
+
+    /**
+     * Returns the first entry, or null if the collection is empty.
+     */
+    @Nullable
+    public Entry<K, V> firstEntry() {
+        return head;
+    }
+
+    /**
+     * Returns the last entry, or null if the collection is empty.
+     */
+    @Nullable
+    public Entry<K, V> lastEntry() {
+        return tail;
+    }
+
+    /**
+     * Removes the first entry and returns its value.
+     * @return the value of the removed entry, or null if the collection is empty
+     */
+    @Nullable
+    public V pollFirst() {
+        Node<K, V> node = head;
+        if (node == null) return null;
+        remove(node.key);
+        return node.value;
+    }
+
+    /**
+     * Removes the last entry and returns its value.
+     * @return the value of the removed entry, or null if the collection is empty
+     */
+    @Nullable
+    public V pollLast() {
+        Node<K, V> node = tail;
+        if (node == null) return null;
+        remove(node.key);
+        return node.value;
+    }
+
+    @Override
+    public void forEach(@NotNull BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action, "action cannot be null");
+        int expectedModCount = modCount;
+        for (Node<K, V> node = head; node != null; node = node.next) {
+            action.accept(node.key, node.value);
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+
+    @NotNull
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public @NotNull Iterator<Entry<K, V>> iterator() {
+                return new Iterator<Entry<K, V>>() {
+                    private Node<K, V> next = head;
+                    private Node<K, V> last;
+                    private int expectedModCount = modCount;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                        if (next == null) throw new NoSuchElementException();
+                        last = next;
+                        next = next.next;
+                        return last;
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) throw new IllegalStateException();
+                        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                        LinkedCollection.this.remove(last.key);
+                        last = null;
+                        expectedModCount = modCount;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return nodes.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry)) return false;
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                Node<K, V> node = nodes.get(entry.getKey());
+                return node != null && Objects.equals(node.value, entry.getValue());
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!contains(o)) return false;
+                LinkedCollection.this.remove(((Entry<?, ?>) o).getKey());
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                LinkedCollection.this.clear();
+            }
+        };
+    }
+
+    @Override
+    @NotNull
+    public <S> CollectionList<S> toList(@NotNull BiFunction<K, V, S> function) {
+        CollectionList<S> list = new CollectionList<>();
+        list.ensureCapacity(size());
+        this.forEach((k, v) -> list.add(function.apply(k, v)));
+        return list;
+    }
+
+    /**
+     * Creates a shallow copy of this collection as the {@link Collection}, as declared by {@link ICollection#clone()}.
+     * The copy doesn't keep the insertion order; use {@link #copy()} to keep it.
+     */
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @Override
+    public Collection<K, V> clone() {
+        return new Collection<>(this);
+    }
+
+    /**
+     * Creates a shallow copy of this collection, which keeps the insertion order.
+     * @return Shallow copy of this collection
+     */
+    @NotNull
+    public LinkedCollection<K, V> copy() {
+        return new LinkedCollection<>(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    @NotNull
+    public LinkedCollection<K, V> deepClone() {
+        LinkedCollection<K, V> collection = new LinkedCollection<>(size());
+        this.forEach((k, v) -> collection.add((K) DeepCloneable.clone(k), (V) DeepCloneable.clone(v)));
+        return collection;
+    }
+
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+        private final K key;
+        private V value;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package util.collection;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Objects;
+
+/**
+ * The live {@link java.util.List List} over the {@link ICollectionList}, which reads and writes through
+ * {@link ICollectionList#get(int)}, {@link ICollectionList#set(int, Object)} and the other index based methods. It
+ * is used by the default {@link ICollectionList#iterator()} and {@link ICollectionList#listIterator()}, so the
+ * iteration doesn't copy the list.
+ */
+final class ListAdapter<V> extends AbstractList<V> {
+    private final ICollectionList<V> list;
+
+    ListAdapter(@NotNull ICollectionList<V> list) {
+        this.list = Objects.requireNonNull(list, "list cannot be null");
+    }
+
+    @Override
+    public V get(int index) {
+        return list.get(index);
+    }
+
+    @Override
+    public V set(int index, V element) {
+        return list.set(index, element);
+    }
+
+    @Override
+    public void add(int index, V element) {
+        list.add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public V remove(int index) {
+        V removed = list.remove(index);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+}
@@ -0,0 +1,480 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import util.magic.Magic;
+
+import java.io.Serializable;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * The list of <code>long</code> values, backed by an <code>long[]</code> array. Unlike
+ * <code>CollectionList&lt;Long&gt;</code>, the values are not boxed, so the list uses several times less memory
+ * and the methods like {@link #map(LongUnaryOperator)} and {@link #sum()} don't allocate per value.
+ * <p>The methods follow {@link ICollectionList}: {@link #map(LongUnaryOperator)}, {@link #filter(LongPredicate)},
+ * {@link #slice(int, int)}, {@link #shuffle()} and {@link #reverse()} return a new list, and {@link #sorted()} sorts
+ * this list and returns it. Use {@link #boxed()} to get the values as the {@link CollectionList}.
+ */
+public class LongCollectionList implements Iterable<Long>, RandomAccess, Cloneable, Serializable {
+    private static final long serialVersionUID = Magic.VERSION;
+    private static final long[] EMPTY = new long[0];
+
+    private long[] values;
+    private int size;
+
+    public LongCollectionList() {
+        this.values = EMPTY;
+    }
+
+    /**
+     * Creates the empty list which can hold <code>capacity</code> values without growing.
+     * @param capacity the initial capacity
+     */
+    public LongCollectionList(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity cannot be negative");
+        this.values = capacity == 0 ? EMPTY : new long[capacity];
+    }
+
+    private LongCollectionList(long @NotNull [] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Creates the list containing the copy of the values.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static LongCollectionList of(long @NotNull ... values) {
+        return new LongCollectionList(values.clone(), values.length);
+    }
+
+    /**
+     * Creates the list using the array as the storage, without copying it. The changes made to the array are
+     * visible to the list until the list grows.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static LongCollectionList wrap(long @NotNull [] values) {
+        return new LongCollectionList(values, values.length);
+    }
+
+    /**
+     * Creates the list from the numbers, using {@link Number#longValue()}.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public static LongCollectionList from(@NotNull java.util.Collection<? extends Number> numbers) {
+        LongCollectionList list = new LongCollectionList(numbers.size());
+        for (Number number : numbers) list.add(number.longValue());
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, Math.max(10, values.length + (values.length >> 1))));
+        }
+    }
+
+    public long get(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Replaces the value at the index.
+     * @return the previous value
+     */
+    public long set(int index, long value) {
+        checkIndex(index);
+        long old = values[index];
+        values[index] = value;
+        return old;
+    }
+
+    public void add(long value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    public void add(int index, long value) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        ensureCapacity(size + 1);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    public void addAll(long @NotNull ... values) {
+        addAll(values, 0, values.length);
+    }
+
+    public void addAll(@NotNull LongCollectionList list) {
+        addAll(list.values, 0, list.size);
+    }
+
+    private void addAll(long @NotNull [] values, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(values, offset, this.values, size, length);
+        size += length;
+    }
+
+    /**
+     * Removes the value at the index.
+     * @return the removed value
+     */
+    public long removeAt(int index) {
+        checkIndex(index);
+        long old = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    /**
+     * Removes the values matching the filter.
+     * @return true if any value was removed
+     */
+    public boolean removeIf(@NotNull LongPredicate filter) {
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test(values[i])) values[newSize++] = values[i];
+        }
+        boolean removed = newSize != size;
+        size = newSize;
+        return removed;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Shrinks the storage to the size of the list.
+     */
+    public void trimToSize() {
+        if (values.length != size) values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+    }
+
+    public int indexOf(long value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) return i;
+        }
+        return -1;
+    }
+
+    public int lastIndexOf(long value) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (values[i] == value) return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(long value) {
+        return indexOf(value) != -1;
+    }
+
+    /**
+     * Simple redirection to the {@link #contains(long)}.
+     */
+    public boolean includes(long value) {
+        return contains(value);
+    }
+
+    /**
+     * Returns the first value, or empty if the list is empty.
+     */
+    @NotNull
+    public OptionalLong first() {
+        return size == 0 ? OptionalLong.empty() : OptionalLong.of(values[0]);
+    }
+
+    /**
+     * Returns the last value, or empty if the list is empty.
+     */
+    @NotNull
+    public OptionalLong last() {
+        return size == 0 ? OptionalLong.empty() : OptionalLong.of(values[size - 1]);
+    }
+
+    /**
+     * Runs the action for each value, without boxing the values.
+     */
+    public void forEachLong(@NotNull LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    /**
+     * Maps the values with the function.
+     * @param function Function that will run to create a new value.
+     * @return New list
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public LongCollectionList map(@NotNull LongUnaryOperator function) {
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = function.applyAsLong(values[i]);
+        }
+        return new LongCollectionList(result, size);
+    }
+
+    /**
+     * Maps the values to the objects with the function.
+     * @param function Function that will run to create a new value.
+     * @return New list with new type.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public <T> CollectionList<T> mapToObj(@NotNull LongFunction<T> function) {
+        CollectionList<T> list = new CollectionList<>();
+        list.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            list.add(function.apply(values[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Filters values. If returned true, that value will be kept.
+     * @param filter filter function.
+     * @return New filtered list
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public LongCollectionList filter(@NotNull LongPredicate filter) {
+        LongCollectionList list = new LongCollectionList();
+        for (int i = 0; i < size; i++) {
+            if (filter.test(values[i])) list.add(values[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Merges the values into the one.
+     * @param operator the function to be run, which receives the value previously returned and the value
+     * @param initialValue the initial value
+     */
+    public long reduce(@NotNull LongBinaryOperator operator, long initialValue) {
+        long result = initialValue;
+        for (int i = 0; i < size; i++) {
+            result = operator.applyAsLong(result, values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sum of the values.
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the average of the values, or empty if the list is empty.
+     */
+    @NotNull
+    public OptionalDouble average() {
+        return size == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum() / size);
+    }
+
+    /**
+     * Sorts this list in the ascending order.
+     * @return this list
+     */
+    @Contract("-> this")
+    @NotNull
+    public LongCollectionList sorted() {
+        Arrays.sort(values, 0, size);
+        return this;
+    }
+
+    /**
+     * Returns the shuffled copy of this list.
+     * @return shuffled new list
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public LongCollectionList shuffle() {
+        LongCollectionList list = clone();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = list.values[i];
+            list.values[i] = list.values[j];
+            list.values[j] = tmp;
+        }
+        return list;
+    }
+
+    /**
+     * Returns the reversed copy of this list.
+     * @return Flipped list
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public LongCollectionList reverse() {
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = values[size - i - 1];
+        }
+        return new LongCollectionList(result, size);
+    }
+
+    /**
+     * Returns the values from the start.
+     * @see ICollectionList#slice(int)
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public LongCollectionList slice(int start) {
+        return slice(start, size);
+    }
+
+    /**
+     * Returns the values from the start to the end (end not included).
+     * @see ICollectionList#slice(int, int)
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    @NotNull
+    public LongCollectionList slice(int start, int end) {
+        int from = Math.max(0, Math.min(start, size));
+        int to = Math.max(from, Math.min(end, size));
+        return new LongCollectionList(Arrays.copyOfRange(values, from, to), to - from);
+    }
+
+    /**
+     * Joins the values with a comma.
+     */
+    @NotNull
+    public String join() {
+        return join(null);
+    }
+
+    /**
+     * Joins the values with the separator.
+     * @param s the separator, or null to use a comma
+     */
+    @NotNull
+    public String join(String s) {
+        String separator = s == null ? "," : s;
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i != 0) str.append(separator);
+            str.append(values[i]);
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns the copy of the values.
+     */
+    @Contract(value = "-> new", pure = true)
+    public long @NotNull [] toLongArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns the buffer sharing the storage of this list, without copying the values. The changes made to the
+     * buffer are visible to the list and vice versa, until the list grows.
+     */
+    @NotNull
+    public LongBuffer asLongBuffer() {
+        return LongBuffer.wrap(values, 0, size).slice();
+    }
+
+    @NotNull
+    public LongStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    /**
+     * Returns the values as the boxed list.
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull
+    public CollectionList<Long> boxed() {
+        return mapToObj(Long::valueOf);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public long nextLong() {
+                if (index >= size) throw new NoSuchElementException();
+                return values[index++];
+            }
+        };
+    }
+
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @Override
+    public LongCollectionList clone() {
+        return new LongCollectionList(Arrays.copyOf(values, size), size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LongCollectionList)) return false;
+        LongCollectionList that = (LongCollectionList) o;
+        if (size != that.size) return false;
+        for (int i = 0; i < size; i++) {
+            if (values[i] != that.values[i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Long.hashCode(values[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + join(", ") + "]";
+    }
+}
@@ -12,15 +12,55 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 
+/**
+ * The map which maps a key to the list of the values. The values of each key are kept in a {@link CollectionList},
+ * which is created when the first value is added to the key and appended in place after that.
+ * @see ConcurrentMultiCollection
+ */
 public class MultiCollection<K, V> implements DeepCloneable {
-    private final Collection<K, CollectionList<V>> map = new Collection<>();
+    private final Collection<K, CollectionList<V>> map;
+    private final int expectedValuesPerKey;
+
+    public MultiCollection() {
+        this(16, 10);
+    }
+
+    /**
+     * Constructs an empty collection sized for the number of keys and the number of values per key.
+     * @param expectedKeys the expected number of keys
+     * @param expectedValuesPerKey the initial capacity of the list of each key
+     */
+    public MultiCollection(int expectedKeys, int expectedValuesPerKey) {
+        if (expectedValuesPerKey < 0) throw new IllegalArgumentException("expectedValuesPerKey cannot be negative");
+        this.map = new Collection<>(expectedKeys);
+        this.expectedValuesPerKey = expectedValuesPerKey;
+    }
+
+    @NotNull
+    private CollectionList<V> getOrCreate(@NotNull K key) {
+        return map.computeIfAbsent(key, k -> {
+            CollectionList<V> list = new CollectionList<>();
+            list.ensureCapacity(expectedValuesPerKey);
+            return list;
+        });
+    }
 
     @Contract("_, _ -> param2")
     public V add(@NotNull K key, @NotNull V value) {
-        map.add(key, (CollectionList<V>) getOrDefault(key, new CollectionList<>()).thenAdd(value));
+        getOrCreate(key).add(value);
         return value;
     }
 
+    /**
+     * Appends all values to the list of the key, growing the list at most once.
+     * @param key Key
+     * @param values the values to add
+     */
+    public void addAll(@NotNull K key, @NotNull java.util.Collection<? extends V> values) {
+        if (values.isEmpty()) return;
+        getOrCreate(key).addAll(values);
+    }
+
     @NotNull
     public CollectionList<V> getOrDefault(@NotNull K key, @NotNull CollectionList<V> values) {
         return map.getOrDefault(key, values);
@@ -36,7 +76,8 @@ public class MultiCollection<K, V> implements DeepCloneable {
     }
 
     public int size(K k) {
-        return map.getOrDefault(k, new CollectionList<>()).size();
+        CollectionList<V> list = map.get(k);
+        return list == null ? 0 : list.size();
     }
 
     /**
@@ -96,7 +137,8 @@ public class MultiCollection<K, V> implements DeepCloneable {
     }
 
     public boolean containsEntry(@NotNull K k, @Nullable V v) {
-        return getOrDefault(k, new CollectionList<>()).contains(v);
+        CollectionList<V> list = map.get(k);
+        return list != null && list.contains(v);
     }
 
     @Contract("_, _ -> param2")
@@ -121,11 +163,8 @@ public class MultiCollection<K, V> implements DeepCloneable {
      * @return Value, null if {@link IndexOutOfBoundsException} occurs.
      */
     public V get(@NotNull K key, int i) {
-        try {
-            return getOrDefault(key, new CollectionList<>()).get(i);
-        } catch (IndexOutOfBoundsException e) {
-            return null;
-        }
+        CollectionList<V> list = map.get(key);
+        return list == null || i < 0 || i >= list.size() ? null : list.get(i);
     }
 
     /**
@@ -134,7 +173,8 @@ public class MultiCollection<K, V> implements DeepCloneable {
      * @param v Value
      */
     public boolean remove(@NotNull K k, @Nullable V v) {
-        return getOrDefault(k, new CollectionList<>()).remove(v);
+        CollectionList<V> list = map.get(k);
+        return list != null && list.remove(v);
     }
 
     /**
@@ -143,13 +183,18 @@ public class MultiCollection<K, V> implements DeepCloneable {
      * @return Removed value
      */
     public V remove(@NotNull K k, int i) {
-        return getOrDefault(k, new CollectionList<>()).remove(i);
+        CollectionList<V> list = map.get(k);
+        if (list == null) throw new IndexOutOfBoundsException("Index: " + i + ", Size: 0");
+        return list.remove(i);
     }
 
     public void putAll(@NotNull K k, Iterable<? extends V> iterable) {
-        CollectionList<V> list = getOrDefault(k, new CollectionList<>());
+        if (iterable instanceof java.util.Collection) {
+            addAll(k, (java.util.Collection<? extends V>) iterable);
+            return;
+        }
+        CollectionList<V> list = getOrCreate(k);
         iterable.forEach(list::add);
-        map.add(k, list);
     }
 
     public void putAll(MultiCollection<? extends K, V> map) {
@@ -187,11 +232,13 @@ public class MultiCollection<K, V> implements DeepCloneable {
     }
 
     public void clear(K k) {
-        map.getOrDefault(k, new CollectionList<>()).clear();
+        CollectionList<V> list = map.get(k);
+        if (list != null) list.clear();
     }
 
     public boolean isEmpty(K k) {
-        return map.getOrDefault(k, new CollectionList<>()).isEmpty();
+        CollectionList<V> list = map.get(k);
+        return list == null || list.isEmpty();
     }
 
     @NotNull
@@ -0,0 +1,450 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * This list keeps the elements outside the Java heap, as the fixed-width records encoded by a {@link RecordCodec}
+ * in the direct {@link ByteBuffer} slabs. The list doesn't hold any object per element, so the large lists of small
+ * records take only the size of their records, and don't add to the work of the garbage collector.
+ * <p>{@link #get(int)} decodes a new object each time. Use the {@link Cursor} returned by {@link #cursor()} (or
+ * {@link #forEachRecord(Consumer)}) to read the fields of the records directly from the slabs without creating any
+ * object.
+ * <p>The list supports appending and replacing the elements, but not inserting or removing them. The memory is freed
+ * when the list is {@link #close() closed} or {@link #clear() cleared}, and the list can't be used after it was
+ * closed. This list is not thread-safe.
+ */
+public class OffHeapRecordList<E> implements ICollectionList<E>, RandomAccess, AutoCloseable {
+    private static final int SLAB_BYTES = 1024 * 1024;
+
+    @NotNull
+    private final RecordCodec<E> codec;
+    private final int recordSize;
+    private final int recordsPerSlab;
+    private final ArrayList<ByteBuffer> slabs = new ArrayList<>();
+    private int size = 0;
+    private boolean closed = false;
+    /**
+     * Incremented when the slabs are freed, so the cursors don't read the freed memory.
+     */
+    private int generation = 0;
+
+    /**
+     * Creates the list which allocates the memory in the slabs of about 1 MiB.
+     * @param codec the codec of the records
+     */
+    public OffHeapRecordList(@NotNull RecordCodec<E> codec) {
+        this(codec, Math.max(1, SLAB_BYTES / codec.getRecordSize()));
+    }
+
+    /**
+     * Creates the list which allocates the memory in the slabs of <code>recordsPerSlab</code> records.
+     * @param codec the codec of the records
+     * @param recordsPerSlab the number of the records in each slab
+     */
+    public OffHeapRecordList(@NotNull RecordCodec<E> codec, int recordsPerSlab) {
+        this.codec = Objects.requireNonNull(codec, "codec cannot be null");
+        this.recordSize = codec.getRecordSize();
+        if (recordSize <= 0) throw new IllegalArgumentException("recordSize must be positive");
+        if (recordsPerSlab <= 0) throw new IllegalArgumentException("recordsPerSlab must be positive");
+        if ((long) recordSize * recordsPerSlab > Integer.MAX_VALUE) throw new IllegalArgumentException("The slab is too large");
+        this.recordsPerSlab = recordsPerSlab;
+    }
+
+    @NotNull
+    public RecordCodec<E> getCodec() {
+        return codec;
+    }
+
+    public int getRecordsPerSlab() {
+        return recordsPerSlab;
+    }
+
+    /**
+     * Returns the number of bytes allocated outside the heap.
+     */
+    public long getAllocatedBytes() {
+        return (long) slabs.size() * recordsPerSlab * recordSize;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("The list is closed");
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    @NotNull
+    private ByteBuffer slab(int index) {
+        return slabs.get(index / recordsPerSlab);
+    }
+
+    private int offset(int index) {
+        return (index % recordsPerSlab) * recordSize;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index);
+        return codec.decode(slab(index), offset(index));
+    }
+
+    @Override
+    public E set(int index, @NotNull E element) {
+        Objects.requireNonNull(element, "element cannot be null");
+        checkIndex(index);
+        ByteBuffer slab = slab(index);
+        int offset = offset(index);
+        E old = codec.decode(slab, offset);
+        codec.encode(element, slab, offset);
+        return old;
+    }
+
+    @Override
+    public boolean add(@NotNull E element) {
+        Objects.requireNonNull(element, "element cannot be null");
+        checkOpen();
+        if (size == Integer.MAX_VALUE) throw new IllegalStateException("The list is full");
+        if (size == slabs.size() * recordsPerSlab) {
+            slabs.add(ByteBuffer.allocateDirect(recordsPerSlab * recordSize).order(ByteOrder.nativeOrder()));
+        }
+        codec.encode(element, slab(size), offset(size));
+        size++;
+        return true;
+    }
+
+    @NotNull
+    @Override
+    @Contract("_ -> param1")
+    public E put(@NotNull E element) {
+        add(element);
+        return element;
+    }
+
+    @Override
+    public boolean addAll(@NotNull Collection<? extends E> c) {
+        c.forEach(this::add);
+        return !c.isEmpty();
+    }
+
+    @Override
+    public boolean addAll(int index, @NotNull Collection<? extends E> c) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public void add(int index, E element) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public E remove(int index) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean remove(Object o) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean removeAll(@NotNull Collection<?> c) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean retainAll(@NotNull Collection<?> c) { throw new UnsupportedOperationException(); }
+
+    /**
+     * Removes all elements and frees the memory of the slabs.
+     */
+    @Override
+    public void clear() {
+        slabs.forEach(DirectBuffers::free);
+        slabs.clear();
+        size = 0;
+        generation++;
+    }
+
+    /**
+     * Frees the memory of the slabs. The list is empty after this, and can't be added to.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        clear();
+        closed = true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(@NotNull Collection<?> c) {
+        for (Object o : c) if (!contains(o)) return false;
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (o == null) return -1;
+        for (int i = 0; i < size; i++) {
+            if (o.equals(get(i))) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (o == null) return -1;
+        for (int i = size - 1; i >= 0; i--) {
+            if (o.equals(get(i))) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public void forEach(@NotNull Consumer<? super E> action) {
+        Objects.requireNonNull(action, "action cannot be null");
+        for (int i = 0; i < size; i++) action.accept(codec.decode(slab(i), offset(i)));
+    }
+
+    /**
+     * Returns a new cursor, which is positioned before the first record.
+     * @return the cursor
+     */
+    @NotNull
+    @Contract("-> new")
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Runs the action for each record, with the same {@link Cursor} positioned at the record. The cursor must not be
+     * kept after the action returns.
+     * @param action the action
+     */
+    public void forEachRecord(@NotNull Consumer<? super Cursor> action) {
+        Objects.requireNonNull(action, "action cannot be null");
+        Cursor cursor = new Cursor();
+        while (cursor.next()) action.accept(cursor);
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size];
+        for (int i = 0; i < size; i++) array[i] = get(i);
+        return array;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    @Override
+    public <T> T[] toArray(@NotNull T[] a) {
+        T[] array = a.length >= size ? a : Arrays.copyOf(a, size);
+        for (int i = 0; i < size; i++) array[i] = (T) get(i);
+        if (array.length > size) array[size] = null;
+        return array;
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public OffHeapRecordList<E> newList() {
+        return new OffHeapRecordList<>(codec, recordsPerSlab);
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public OffHeapRecordList<E> newList(@Nullable Collection<? extends E> list) {
+        OffHeapRecordList<E> newList = newList();
+        if (list != null) newList.addAll(list);
+        return newList;
+    }
+
+    /**
+     * Returns the new {@link CollectionList}, since the list of the other type doesn't have the codec.
+     */
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public <T> CollectionList<T> createList() {
+        return new CollectionList<>();
+    }
+
+    /**
+     * Copies the slabs to the new list without decoding the records.
+     */
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @NotNull
+    @Override
+    @Contract("-> new")
+    public OffHeapRecordList<E> clone() {
+        OffHeapRecordList<E> list = newList();
+        for (ByteBuffer slab : slabs) {
+            ByteBuffer copy = ByteBuffer.allocateDirect(slab.capacity()).order(slab.order());
+            copy.put(slab.duplicate());
+            list.slabs.add(copy);
+        }
+        list.size = size;
+        return list;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof List)) return false;
+        List<?> list = (List<?>) o;
+        if (list.size() != size) return false;
+        Iterator<?> it = list.iterator();
+        for (int i = 0; i < size; i++) if (!Objects.equals(get(i), it.next())) return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++) hashCode = 31 * hashCode + Objects.hashCode(get(i));
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * The flyweight view of a record of the list. The cursor reads the fields of the record directly from the slab,
+     * at the offsets relative to the start of the record, so reading a record doesn't create any object. The field
+     * offsets are not checked against the record size.
+     */
+    public final class Cursor {
+        private int index = -1;
+        private ByteBuffer slab;
+        private int offset;
+        private int generation = OffHeapRecordList.this.generation;
+
+        private Cursor() {}
+
+        /**
+         * Moves this cursor to the record.
+         * @param index the index of the record
+         * @return this cursor
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        @NotNull
+        @Contract("_ -> this")
+        public Cursor moveTo(int index) {
+            checkIndex(index);
+            this.index = index;
+            this.generation = OffHeapRecordList.this.generation;
+            this.slab = slab(index);
+            this.offset = offset(index);
+            return this;
+        }
+
+        /**
+         * Moves this cursor to the next record.
+         * @return false if there is no next record
+         */
+        public boolean next() {
+            if (generation != OffHeapRecordList.this.generation) throw new IllegalStateException("The list was cleared");
+            if (index + 1 >= size) return false;
+            moveTo(index + 1);
+            return true;
+        }
+
+        /**
+         * Returns the index of the current record, or -1 if the cursor wasn't moved yet.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the slab containing the current record. The record starts at {@link #getOffset()}. The slab must
+         * not be modified except for the bytes of the current record.
+         * <p>The slab is the native memory of the list, and it is not checked when it is read. The slab must not be
+         * kept after the cursor is moved, and must not be used after the list was {@link #clear() cleared} or
+         * {@link #close() closed}, since its memory is freed then and reading it may crash the JVM. Use the getters
+         * of this cursor, which are checked, unless the raw buffer is needed.
+         */
+        @NotNull
+        public ByteBuffer getBuffer() {
+            checkPosition();
+            return slab;
+        }
+
+        /**
+         * Returns the offset of the current record in {@link #getBuffer()}.
+         */
+        public int getOffset() {
+            checkPosition();
+            return offset;
+        }
+
+        private void checkPosition() {
+            if (slab == null) throw new IllegalStateException("The cursor is not positioned at a record");
+            if (generation != OffHeapRecordList.this.generation) throw new IllegalStateException("The list was cleared");
+        }
+
+        /**
+         * Decodes the current record.
+         */
+        @NotNull
+        public E get() {
+            checkPosition();
+            return codec.decode(slab, offset);
+        }
+
+        public byte getByte(int field) {
+            checkPosition();
+            return slab.get(offset + field);
+        }
+
+        public short getShort(int field) {
+            checkPosition();
+            return slab.getShort(offset + field);
+        }
+
+        public char getChar(int field) {
+            checkPosition();
+            return slab.getChar(offset + field);
+        }
+
+        public int getInt(int field) {
+            checkPosition();
+            return slab.getInt(offset + field);
+        }
+
+        public long getLong(int field) {
+            checkPosition();
+            return slab.getLong(offset + field);
+        }
+
+        public float getFloat(int field) {
+            checkPosition();
+            return slab.getFloat(offset + field);
+        }
+
+        public double getDouble(int field) {
+            checkPosition();
+            return slab.getDouble(offset + field);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package util.collection;
+
+import org.jetbrains.annotations.NotNull;
+import util.magic.Magic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+
+/**
+ * The implementation of the parallel operations of the {@link ICollectionList}. The list is copied into an array
+ * once, and the array is split into the ranges on the pool of the {@link Parallelism}. The results are written to
+ * the index of each element, so the order of the elements is preserved.
+ */
+@SuppressWarnings("unchecked")
+final class ParallelOperations {
+    private ParallelOperations() {}
+
+    @NotNull
+    static <V, T> List<T> map(@NotNull Parallelism parallelism, @NotNull List<V> list, @NotNull BiFunction<V, Integer, T> function) {
+        Object[] values = list.toArray();
+        Object[] result = new Object[values.length];
+        forRange(parallelism, values.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = function.apply((V) values[i], i);
+            }
+        });
+        return (List<T>) Arrays.asList(result);
+    }
+
+    @NotNull
+    static <V> List<V> filter(@NotNull Parallelism parallelism, @NotNull List<V> list, @NotNull BiPredicate<V, Integer> filter) {
+        Object[] values = list.toArray();
+        boolean[] keep = new boolean[values.length];
+        forRange(parallelism, values.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                keep[i] = filter.test((V) values[i], i);
+            }
+        });
+        List<V> result = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (keep[i]) result.add((V) values[i]);
+        }
+        return result;
+    }
+
+    @NotNull
+    static <V, T> List<T> flatMap(@NotNull Parallelism parallelism, @NotNull List<V> list, @NotNull BiFunction<V, Integer, ? extends List<? extends T>> function) {
+        List<? extends List<? extends T>> lists = map(parallelism, list, function);
+        List<T> result = new ArrayList<>();
+        for (List<? extends T> l : lists) {
+            if (l != null) result.addAll(l);
+        }
+        return result;
+    }
+
+    static <V, U> U reduce(@NotNull Parallelism parallelism, @NotNull List<V> list, U identity, @NotNull BiFunction<U, V, U> accumulator, @NotNull BinaryOperator<U> combiner) {
+        Object[] values = list.toArray();
+        ReduceTask<V, U> task = new ReduceTask<>(values, 0, values.length, parallelism.getThreshold(), identity, accumulator, combiner);
+        return values.length <= parallelism.getThreshold() ? task.compute() : parallelism.getPool().invoke(task);
+    }
+
+    static <V> void sort(@NotNull Parallelism parallelism, @NotNull List<V> list, @NotNull Comparator<? super V> comparator) {
+        V[] values = (V[]) list.toArray();
+        sort(parallelism, values, 0, values.length, comparator);
+        ListIterator<V> iterator = list.listIterator();
+        for (V value : values) {
+            iterator.next();
+            iterator.set(value);
+        }
+    }
+
+    /**
+     * Sorts the range of the array in place.
+     */
+    static <V> void sort(@NotNull Parallelism parallelism, @NotNull V[] values, int from, int to, @NotNull Comparator<? super V> comparator) {
+        if (to - from <= parallelism.getThreshold()) {
+            Arrays.sort(values, from, to, comparator);
+        } else {
+            // Arrays.parallelSort runs on the pool of the current worker thread
+            parallelism.getPool().invoke(new SortAction<>(values, from, to, comparator));
+        }
+    }
+
+    private static void forRange(@NotNull Parallelism parallelism, int size, @NotNull RangeConsumer consumer) {
+        if (size <= parallelism.getThreshold()) {
+            consumer.accept(0, size);
+        } else {
+            parallelism.getPool().invoke(new RangeAction(consumer, 0, size, parallelism.getThreshold()));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeConsumer {
+        void accept(int from, int to);
+    }
+
+    private static final class SortAction<V> extends RecursiveAction {
+        private static final long serialVersionUID = Magic.VERSION;
+        private final V[] values;
+        private final int from;
+        private final int to;
+        private final Comparator<? super V> comparator;
+
+        private SortAction(V[] values, int from, int to, Comparator<? super V> comparator) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            Arrays.parallelSort(values, from, to, comparator);
+        }
+    }
+
+    private static final class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = Magic.VERSION;
+        private final RangeConsumer consumer;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private RangeAction(RangeConsumer consumer, int from, int to, int threshold) {
+            this.consumer = consumer;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                consumer.accept(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(consumer, from, mid, threshold), new RangeAction(consumer, mid, to, threshold));
+        }
+    }
+
+    private static final class ReduceTask<V, U> extends RecursiveTask<U> {
+        private static final long serialVersionUID = Magic.VERSION;
+        private final Object[] values;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final U identity;
+        private final BiFunction<U, V, U> accumulator;
+        private final BinaryOperator<U> combiner;
+
+        private ReduceTask(Object[] values, int from, int to, int threshold, U identity, BiFunction<U, V, U> accumulator, BinaryOperator<U> combiner) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected U compute() {
+            if (to - from <= threshold) {
+                U result = identity;
+                for (int i = from; i < to; i++) {
+                    result = accumulator.apply(result, (V) values[i]);
+                }
+                return result;
+            }
+            int mid = (from + to) >>> 1;
+            ReduceTask<V, U> left = new ReduceTask<>(values, from, mid, threshold, identity, accumulator, combiner);
+            ReduceTask<V, U> right = new ReduceTask<>(values, mid, to, threshold, identity, accumulator, combiner);
+            right.fork();
+            U leftResult = left.compute();
+            return combiner.apply(leftResult, right.join());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The settings of the parallel operations of the {@link ICollectionList}, like
+ * {@link ICollectionList#parallelMap(Parallelism, java.util.function.Function)}.
+ * <p>The list is split into the ranges until the range has no more than the {@link #getThreshold() threshold}
+ * elements, and the ranges are processed on the {@link #getPool() pool}. The list with no more than the threshold
+ * elements is processed on the calling thread.
+ * <p>The operations copy the whole list into an array on the heap before splitting it, so they are not suited to
+ * the lists larger than the memory. {@link FileBasedCollectionList} and {@link SpillingCollectionList} override
+ * {@link ICollectionList#parallelReduce(Parallelism, Object, java.util.function.BiFunction,
+ * java.util.function.BinaryOperator) parallelReduce} and
+ * {@link ICollectionList#parallelSorted(Parallelism, java.util.Comparator) parallelSorted} to work on their chunks
+ * instead; for the other operations, use the parallel {@link ICollectionList#stream() stream} of such lists.
+ */
+public final class Parallelism {
+    /**
+     * Uses the {@link ForkJoinPool#commonPool() common pool} and the threshold of 4096 elements.
+     */
+    public static final Parallelism DEFAULT = new Parallelism(ForkJoinPool.commonPool(), 4096);
+
+    @NotNull
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private Parallelism(@NotNull ForkJoinPool pool, int threshold) {
+        this.pool = Objects.requireNonNull(pool, "pool cannot be null");
+        if (threshold <= 0) throw new IllegalArgumentException("threshold must be positive");
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates the settings.
+     * @param pool the pool to run the operations on
+     * @param threshold the number of the elements processed sequentially by one task
+     * @return the settings
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    @NotNull
+    public static Parallelism of(@NotNull ForkJoinPool pool, int threshold) {
+        return new Parallelism(pool, threshold);
+    }
+
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public Parallelism withPool(@NotNull ForkJoinPool pool) {
+        return new Parallelism(pool, threshold);
+    }
+
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull
+    public Parallelism withThreshold(int threshold) {
+        return new Parallelism(pool, threshold);
+    }
+
+    @NotNull
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public String toString() {
+        return "Parallelism{pool=" + pool + ", threshold=" + threshold + '}';
+    }
+}
@@ -0,0 +1,738 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import util.DeepCloneable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * The immutable {@link ICollectionList} which shares its structure with the lists it was created from, so the
+ * snapshots of a large list can be handed out without copying it. The elements are kept in a 32-way trie with a
+ * tail buffer, like the persistent vector of Clojure.
+ * <p>{@link #plus(Object)} and {@link #with(int, Object)} return a new list in O(log<sub>32</sub> n) time, and
+ * {@link #slice(int, int)}, {@link #limit(long)} and {@link #max(long)} return a view of the same trie in constant
+ * time. {@link #clone()} returns this list. {@link #thenAdd(Object)} and {@link #thenAddAll(List)} return the new
+ * list instead of modifying this list, so their results must be used.
+ * <p>The methods of {@link List} which modify the list throw {@link UnsupportedOperationException}. Use the
+ * {@link Builder} (see {@link #builder()} and {@link #toBuilder()}) to add many elements at once without creating
+ * the intermediate lists. The other operations inherited from {@link ICollectionList} which create a new list,
+ * such as {@link #unique()}, return a mutable {@link CollectionList}.
+ * <p>A slice keeps the whole trie of the list it was sliced from reachable, like {@link List#subList(int, int)}.
+ */
+public final class PersistentCollectionList<V> implements ICollectionList<V>, RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentCollectionList<?> EMPTY = new PersistentCollectionList<>(Trie.EMPTY, 0, 0);
+
+    @NotNull
+    private final Trie trie;
+    private final int offset;
+    private final int size;
+
+    private PersistentCollectionList(@NotNull Trie trie, int offset, int size) {
+        this.trie = trie;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    @Contract(pure = true)
+    public static <T> PersistentCollectionList<T> empty() {
+        return (PersistentCollectionList<T>) EMPTY;
+    }
+
+    @SafeVarargs
+    @NotNull
+    public static <T> PersistentCollectionList<T> of(@NotNull T... t) {
+        return PersistentCollectionList.<T>builder().addAll(Arrays.asList(t)).build();
+    }
+
+    /**
+     * Creates the list with the elements of the iterable, in the iteration order.
+     * @param iterable the elements
+     * @return the list
+     */
+    @NotNull
+    public static <T> PersistentCollectionList<T> from(@NotNull Iterable<? extends T> iterable) {
+        if (iterable instanceof PersistentCollectionList) {
+            @SuppressWarnings("unchecked")
+            PersistentCollectionList<T> list = (PersistentCollectionList<T>) iterable;
+            return list;
+        }
+        return PersistentCollectionList.<T>builder().addAll(iterable).build();
+    }
+
+    @NotNull
+    @Contract("-> new")
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Returns the builder which starts with the elements of this list. The builder shares the trie with this list
+     * until it is modified, so this takes constant time unless this list is a slice.
+     * @return the builder
+     */
+    @NotNull
+    @Contract("-> new")
+    public Builder<V> toBuilder() {
+        if (offset == 0 && size == trie.count) return new Builder<>(trie);
+        return new Builder<V>().addAll(this);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(int index) {
+        checkIndex(index);
+        int i = offset + index;
+        return (V) trie.arrayFor(i)[i & MASK];
+    }
+
+    /**
+     * Returns the list with the element appended. This list is not modified.
+     * @param v the element
+     * @return the new list
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    public PersistentCollectionList<V> plus(V v) {
+        int end = offset + size;
+        // the elements after the end of a slice are not visible, so the next one can be replaced
+        Trie trie = end == this.trie.count ? this.trie.cons(v) : this.trie.assoc(end, v);
+        return new PersistentCollectionList<>(trie, offset, size + 1);
+    }
+
+    /**
+     * Returns the list with all elements of the iterable appended. This list is not modified.
+     * @param iterable the elements
+     * @return the new list
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    public PersistentCollectionList<V> plusAll(@NotNull Iterable<? extends V> iterable) {
+        if (offset == 0 && size == trie.count) return toBuilder().addAll(iterable).build();
+        PersistentCollectionList<V> list = this;
+        for (V v : iterable) list = list.plus(v);
+        return list;
+    }
+
+    /**
+     * Returns the list with the element at the index replaced. This list is not modified.
+     * @param index the index
+     * @param v the element
+     * @return the new list
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @NotNull
+    @Contract(value = "_, _ -> new", pure = true)
+    public PersistentCollectionList<V> with(int index, V v) {
+        checkIndex(index);
+        return new PersistentCollectionList<>(trie.assoc(offset + index, v), offset, size);
+    }
+
+    /**
+     * Returns the view of this list from the start (inclusive) to the end (exclusive), in constant time. The indexes
+     * out of range are clamped to the range of this list.
+     */
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public PersistentCollectionList<V> slice(int start, int end) {
+        start = Math.max(0, Math.min(start, size));
+        end = Math.max(start, Math.min(end, size));
+        if (start == 0 && end == size) return this;
+        if (start == end) return empty();
+        return new PersistentCollectionList<>(trie, offset + start, end - start);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public PersistentCollectionList<V> slice(int start) {
+        return slice(start, size);
+    }
+
+    /**
+     * Returns the view of this list without the first <code>max</code> elements, in constant time.
+     */
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public PersistentCollectionList<V> limit(long max) {
+        return slice((int) Math.min(max, size));
+    }
+
+    /**
+     * Returns the view of the first <code>max</code> elements of this list, in constant time.
+     */
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public PersistentCollectionList<V> max(long max) {
+        return slice(0, (int) Math.min(max, size));
+    }
+
+    /**
+     * Returns the list with the element appended. This list is not modified.
+     * @see #plus(Object)
+     */
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public PersistentCollectionList<V> thenAdd(@NotNull V v) {
+        return plus(v);
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public PersistentCollectionList<V> thenAdd(@NotNull Supplier<? extends V> supplier) {
+        return plus(supplier.get());
+    }
+
+    /**
+     * Returns the list with all elements of the list appended. This list is not modified.
+     * @see #plusAll(Iterable)
+     */
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public PersistentCollectionList<V> thenAddAll(@NotNull List<? extends V> list) {
+        return plusAll(list);
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public PersistentCollectionList<V> thenAddAll(@NotNull Supplier<? extends List<? extends V>> supplier) {
+        return plusAll(supplier.get());
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public PersistentCollectionList<V> reverse() {
+        Builder<V> builder = new Builder<>();
+        for (int i = size - 1; i >= 0; i--) builder.add(get(i));
+        return builder.build();
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public PersistentCollectionList<V> shuffle() {
+        List<V> list = Arrays.asList(valuesArray());
+        Collections.shuffle(list);
+        return PersistentCollectionList.<V>builder().addAll(list).build();
+    }
+
+    /**
+     * Returns the sorted list. This list is not modified.
+     */
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public PersistentCollectionList<V> sorted(Comparator<? super V> comparator) {
+        V[] array = valuesArray();
+        Arrays.sort(array, comparator);
+        return PersistentCollectionList.<V>builder().addAll(Arrays.asList(array)).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public PersistentCollectionList<V> sorted() {
+        return sorted((Comparator<V>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Returns the list sorted in parallel. This list is not modified.
+     * @see ICollectionList#parallelSorted(Parallelism, Comparator)
+     */
+    @NotNull
+    @Override
+    @Contract(value = "_, _ -> new", pure = true)
+    public PersistentCollectionList<V> parallelSorted(@NotNull Parallelism parallelism, @NotNull Comparator<? super V> comparator) {
+        V[] array = valuesArray();
+        ParallelOperations.sort(parallelism, array, 0, array.length, comparator);
+        return PersistentCollectionList.<V>builder().addAll(Arrays.asList(array)).build();
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public PersistentCollectionList<V> parallelSorted(@NotNull Comparator<? super V> comparator) {
+        return parallelSorted(Parallelism.DEFAULT, comparator);
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public PersistentCollectionList<V> filter(@NotNull Function<V, Boolean> filter) {
+        Builder<V> builder = new Builder<>();
+        forEach(v -> {
+            if (filter.apply(v)) builder.add(v);
+        });
+        return builder.build();
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public <T> PersistentCollectionList<T> map(@NotNull Function<V, T> function) {
+        Builder<T> builder = new Builder<>();
+        forEach(v -> builder.add(function.apply(v)));
+        return builder.build();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(@NotNull java.util.Collection<?> c) {
+        for (Object o : c) if (!contains(o)) return false;
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int i = 0;
+        for (V v : this) {
+            if (Objects.equals(o, v)) return i;
+            i++;
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (Objects.equals(o, get(i))) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the iterator which reads each leaf of the trie once.
+     */
+    @NotNull
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            private int index = offset;
+            private final int end = offset + size;
+            private Object[] array = index < end ? trie.arrayFor(index) : null;
+
+            @Override
+            public boolean hasNext() {
+                return index < end;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public V next() {
+                if (index >= end) throw new NoSuchElementException();
+                if (index != offset && (index & MASK) == 0) array = trie.arrayFor(index);
+                return (V) array[index++ & MASK];
+            }
+        };
+    }
+
+    @Override
+    public void forEach(@NotNull Consumer<? super V> action) {
+        Objects.requireNonNull(action, "action cannot be null");
+        for (V v : this) action.accept(v);
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size];
+        int i = 0;
+        for (V v : this) array[i++] = v;
+        return array;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    @Override
+    public <T> T[] toArray(@NotNull T[] a) {
+        T[] array = a.length >= size ? a : Arrays.copyOf(a, size);
+        int i = 0;
+        for (V v : this) array[i++] = (T) v;
+        if (array.length > size) array[size] = null;
+        return array;
+    }
+
+    @Override
+    public V put(@NotNull V v) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean add(V v) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public void add(int index, V element) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean addAll(@NotNull java.util.Collection<? extends V> c) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean addAll(int index, @NotNull java.util.Collection<? extends V> c) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public V set(int index, V element) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public V remove(int index) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean remove(Object o) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean removeAll(@NotNull java.util.Collection<?> c) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean retainAll(@NotNull java.util.Collection<?> c) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public boolean removeIf(@NotNull Predicate<? super V> filter) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public void replaceAll(@NotNull UnaryOperator<V> operator) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public void sort(@Nullable Comparator<? super V> c) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public void clear() { throw new UnsupportedOperationException(); }
+
+    /**
+     * Returns this list, since the list can't be modified.
+     */
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @NotNull
+    @Override
+    @Contract(value = "-> this", pure = true)
+    public PersistentCollectionList<V> clone() {
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public PersistentCollectionList<V> deepClone() {
+        return map(v -> (V) DeepCloneable.clone(v));
+    }
+
+    /**
+     * Returns the new {@link CollectionList}, so the inherited operations can add to it.
+     */
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public CollectionList<V> newList() {
+        return new CollectionList<>();
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "_ -> new", pure = true)
+    public CollectionList<V> newList(@Nullable java.util.Collection<? extends V> list) {
+        return list == null ? new CollectionList<>() : new CollectionList<>(list);
+    }
+
+    @NotNull
+    @Override
+    @Contract(value = "-> new", pure = true)
+    public <E> CollectionList<E> createList() {
+        return new CollectionList<>();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof List)) return false;
+        List<?> list = (List<?>) o;
+        if (list.size() != size) return false;
+        Iterator<?> it = list.iterator();
+        for (V v : this) if (!Objects.equals(v, it.next())) return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (V v : this) hashCode = 31 * hashCode + Objects.hashCode(v);
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * The node of the trie. The nodes created by a {@link Builder} are owned by the builder until it builds the list,
+     * and the builder modifies the nodes it owns in place.
+     */
+    private static final class Node {
+        @Nullable
+        private final Object edit;
+        @NotNull
+        private final Object[] array;
+
+        private Node(@Nullable Object edit, @NotNull Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        private Node(@Nullable Object edit) {
+            this(edit, new Object[WIDTH]);
+        }
+    }
+
+    /**
+     * The immutable trie. The last (up to 32) elements are kept in the tail, and the others are kept in the leaves
+     * of the trie under the root.
+     */
+    private static final class Trie {
+        private static final Trie EMPTY = new Trie(new Node(null), new Object[0], BITS, 0);
+
+        @NotNull
+        private final Node root;
+        @NotNull
+        private final Object[] tail;
+        private final int shift;
+        private final int count;
+
+        private Trie(@NotNull Node root, @NotNull Object[] tail, int shift, int count) {
+            this.root = root;
+            this.tail = tail;
+            this.shift = shift;
+            this.count = count;
+        }
+
+        @NotNull
+        private Object[] arrayFor(int i) {
+            if (i >= tailOffset(count)) return tail;
+            Node node = root;
+            for (int level = shift; level > 0; level -= BITS) node = (Node) node.array[(i >>> level) & MASK];
+            return node.array;
+        }
+
+        @NotNull
+        private Trie assoc(int i, Object v) {
+            if (i >= tailOffset(count)) {
+                Object[] newTail = tail.clone();
+                newTail[i & MASK] = v;
+                return new Trie(root, newTail, shift, count);
+            }
+            return new Trie(assoc(shift, root, i, v), tail, shift, count);
+        }
+
+        @NotNull
+        private static Node assoc(int level, @NotNull Node node, int i, Object v) {
+            Node ret = new Node(null, node.array.clone());
+            if (level == 0) {
+                ret.array[i & MASK] = v;
+            } else {
+                int subIndex = (i >>> level) & MASK;
+                ret.array[subIndex] = assoc(level - BITS, (Node) node.array[subIndex], i, v);
+            }
+            return ret;
+        }
+
+        @NotNull
+        private Trie cons(Object v) {
+            if (count - tailOffset(count) < WIDTH) {
+                Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+                newTail[tail.length] = v;
+                return new Trie(root, newTail, shift, count + 1);
+            }
+            Node tailNode = new Node(null, tail);
+            Node newRoot;
+            int newShift = shift;
+            if ((count >>> BITS) > (1 << shift)) {
+                newRoot = new Node(null);
+                newRoot.array[0] = root;
+                newRoot.array[1] = newPath(null, shift, tailNode);
+                newShift += BITS;
+            } else {
+                newRoot = pushTail(shift, root, tailNode);
+            }
+            return new Trie(newRoot, new Object[] { v }, newShift, count + 1);
+        }
+
+        @NotNull
+        private Node pushTail(int level, @NotNull Node parent, @NotNull Node tailNode) {
+            int subIndex = ((count - 1) >>> level) & MASK;
+            Node ret = new Node(null, parent.array.clone());
+            Node child = (Node) parent.array[subIndex];
+            ret.array[subIndex] = level == BITS ? tailNode
+                    : child != null ? pushTail(level - BITS, child, tailNode) : newPath(null, level - BITS, tailNode);
+            return ret;
+        }
+    }
+
+    private static int tailOffset(int count) {
+        return count < WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+    }
+
+    @NotNull
+    private static Node newPath(@Nullable Object edit, int level, @NotNull Node node) {
+        if (level == 0) return node;
+        Node ret = new Node(edit);
+        ret.array[0] = newPath(edit, level - BITS, node);
+        return ret;
+    }
+
+    /**
+     * The mutable builder of the {@link PersistentCollectionList}. The builder modifies the nodes it created in
+     * place, so adding many elements doesn't copy the path to the tail for each element. The builder can be used
+     * after {@link #build()}, and it copies the nodes shared with the built lists before modifying them.
+     * This class is not thread-safe.
+     */
+    public static final class Builder<V> {
+        @NotNull
+        private Object edit = new Object();
+        @NotNull
+        private Node root;
+        @NotNull
+        private Object[] tail;
+        private int shift;
+        private int count;
+
+        private Builder() {
+            this.root = new Node(edit);
+            this.tail = new Object[WIDTH];
+            this.shift = BITS;
+            this.count = 0;
+        }
+
+        private Builder(@NotNull Trie trie) {
+            this.root = trie.root;
+            this.tail = Arrays.copyOf(trie.tail, WIDTH);
+            this.shift = trie.shift;
+            this.count = trie.count;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        @NotNull
+        private Node ensureEditable(@NotNull Node node) {
+            return node.edit == edit ? node : new Node(edit, node.array.clone());
+        }
+
+        @NotNull
+        @Contract("_ -> this")
+        public Builder<V> add(V v) {
+            if (count - tailOffset(count) < WIDTH) {
+                tail[count & MASK] = v;
+                count++;
+                return this;
+            }
+            Node tailNode = new Node(edit, tail);
+            tail = new Object[WIDTH];
+            tail[0] = v;
+            if ((count >>> BITS) > (1 << shift)) {
+                Node newRoot = new Node(edit);
+                newRoot.array[0] = root;
+                newRoot.array[1] = newPath(edit, shift, tailNode);
+                root = newRoot;
+                shift += BITS;
+            } else {
+                root = pushTail(shift, root, tailNode);
+            }
+            count++;
+            return this;
+        }
+
+        @NotNull
+        @Contract("_ -> this")
+        public Builder<V> addAll(@NotNull Iterable<? extends V> iterable) {
+            for (V v : iterable) add(v);
+            return this;
+        }
+
+        /**
+         * Replaces the element at the index.
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        @NotNull
+        @Contract("_, _ -> this")
+        public Builder<V> set(int index, V v) {
+            if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            if (index >= tailOffset(count)) {
+                tail[index & MASK] = v;
+            } else {
+                root = assoc(shift, root, index, v);
+            }
+            return this;
+        }
+
+        @NotNull
+        private Node pushTail(int level, @NotNull Node parent, @NotNull Node tailNode) {
+            Node ret = ensureEditable(parent);
+            int subIndex = ((count - 1) >>> level) & MASK;
+            Node child = (Node) ret.array[subIndex];
+            ret.array[subIndex] = level == BITS ? tailNode
+                    : child != null ? pushTail(level - BITS, child, tailNode) : newPath(edit, level - BITS, tailNode);
+            return ret;
+        }
+
+        @NotNull
+        private Node assoc(int level, @NotNull Node node, int i, Object v) {
+            Node ret = ensureEditable(node);
+            if (level == 0) {
+                ret.array[i & MASK] = v;
+            } else {
+                int subIndex = (i >>> level) & MASK;
+                ret.array[subIndex] = assoc(level - BITS, (Node) ret.array[subIndex], i, v);
+            }
+            return ret;
+        }
+
+        /**
+         * Returns the list with the elements added so far.
+         * @return the list
+         */
+        @NotNull
+        public PersistentCollectionList<V> build() {
+            if (count == 0) return empty();
+            Trie trie = new Trie(root, Arrays.copyOf(tail, count - tailOffset(count)), shift, count);
+            // the nodes are shared with the list from now on
+            edit = new Object();
+            return new PersistentCollectionList<>(trie, 0, count);
+        }
+    }
+}
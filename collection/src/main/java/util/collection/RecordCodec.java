@@ -0,0 +1,92 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Encodes and decodes the elements of the {@link OffHeapRecordList} as the fixed-width records. Every element is
+ * written to exactly {@link #getRecordSize()} bytes, so the position of each record can be computed from its index.
+ * <p>The codec reads and writes the buffer with the absolute methods (such as {@link ByteBuffer#getInt(int)}), and
+ * must not change the position or the limit of the buffer. The null elements are not supported.
+ * @param <E> the element type
+ * @see OffHeapRecordList
+ */
+public interface RecordCodec<E> {
+    RecordCodec<Integer> INTEGER = of(Integer.BYTES, (i, buffer, offset) -> buffer.putInt(offset, i), ByteBuffer::getInt);
+    RecordCodec<Long> LONG = of(Long.BYTES, (l, buffer, offset) -> buffer.putLong(offset, l), ByteBuffer::getLong);
+    RecordCodec<Double> DOUBLE = of(Double.BYTES, (d, buffer, offset) -> buffer.putDouble(offset, d), ByteBuffer::getDouble);
+    RecordCodec<Float> FLOAT = of(Float.BYTES, (f, buffer, offset) -> buffer.putFloat(offset, f), ByteBuffer::getFloat);
+    RecordCodec<UUID> UUID = of(Long.BYTES * 2,
+            (uuid, buffer, offset) -> {
+                buffer.putLong(offset, uuid.getMostSignificantBits());
+                buffer.putLong(offset + Long.BYTES, uuid.getLeastSignificantBits());
+            },
+            (buffer, offset) -> new UUID(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES)));
+
+    /**
+     * Returns the number of bytes of each record. This must not change.
+     * @return the record size, must be positive
+     */
+    int getRecordSize();
+
+    /**
+     * Writes the element to the {@link #getRecordSize()} bytes of the buffer starting at the offset.
+     * @param element the element to write
+     * @param buffer the buffer
+     * @param offset the offset of the record in the buffer
+     */
+    void encode(@NotNull E element, @NotNull ByteBuffer buffer, int offset);
+
+    /**
+     * Reads the element written by {@link #encode(Object, ByteBuffer, int)}.
+     * @param buffer the buffer
+     * @param offset the offset of the record in the buffer
+     * @return the element
+     */
+    @NotNull
+    E decode(@NotNull ByteBuffer buffer, int offset);
+
+    /**
+     * Creates a codec from the encoder and the decoder.
+     * @param recordSize the number of bytes of each record
+     * @param encoder the encoder
+     * @param decoder the decoder
+     * @return the codec
+     * @throws IllegalArgumentException if the record size is not positive
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    @NotNull
+    static <E> RecordCodec<E> of(int recordSize, @NotNull Encoder<E> encoder, @NotNull Decoder<E> decoder) {
+        if (recordSize <= 0) throw new IllegalArgumentException("recordSize must be positive");
+        return new RecordCodec<E>() {
+            @Override
+            public int getRecordSize() {
+                return recordSize;
+            }
+
+            @Override
+            public void encode(@NotNull E element, @NotNull ByteBuffer buffer, int offset) {
+                encoder.encode(element, buffer, offset);
+            }
+
+            @Override
+            public @NotNull E decode(@NotNull ByteBuffer buffer, int offset) {
+                return decoder.decode(buffer, offset);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface Encoder<E> {
+        void encode(@NotNull E element, @NotNull ByteBuffer buffer, int offset);
+    }
+
+    @FunctionalInterface
+    interface Decoder<E> {
+        @NotNull
+        E decode(@NotNull ByteBuffer buffer, int offset);
+    }
+}
@@ -0,0 +1,157 @@
+package util.collection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import util.DeepCloneable;
+import util.magic.Magic;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+/**
+ * The {@link ICollection} which keeps the entries sorted by the keys, backed by the {@link TreeMap}.
+ * {@link #first()}, {@link #last()}, {@link #pollFirst()} and {@link #pollLast()} take logarithmic time, and the
+ * {@link #headMap(Object) headMap}, {@link #tailMap(Object) tailMap} and {@link #subMap(Object, Object) subMap} of
+ * the {@link java.util.NavigableMap NavigableMap} return the live views of the key ranges.
+ * <p>Unlike the {@link SortedMap#firstKey()} and {@link SortedMap#lastKey()}, {@link #firstKey()} and
+ * {@link #lastKey()} return null if the collection is empty, like the other {@link ICollection}.
+ */
+public class SortedCollection<K, V> extends TreeMap<K, V> implements ICollection<K, V> {
+    private static final long serialVersionUID = Magic.VERSION;
+
+    /**
+     * Constructs an empty collection sorted by the natural order of the keys.
+     */
+    public SortedCollection() {
+        super();
+    }
+
+    /**
+     * Constructs an empty collection sorted by the comparator.
+     * @param comparator the comparator of the keys, or null to use the natural order
+     */
+    public SortedCollection(@Nullable Comparator<? super K> comparator) {
+        super(comparator);
+    }
+
+    /**
+     * Constructs this collection with values, sorted by the natural order of the keys.
+     * @param map will be added with this constructor
+     */
+    public SortedCollection(@NotNull Map<? extends K, ? extends V> map) {
+        super(map);
+    }
+
+    /**
+     * Constructs this collection with values, sorted by the same comparator as the map.
+     * @param map will be added with this constructor
+     */
+    public SortedCollection(@NotNull SortedMap<K, ? extends V> map) {
+        super(map);
+    }
+
+    @Nullable
+    @Override
+    public V first() {
+        Entry<K, V> entry = firstEntry();
+        return entry == null ? null : entry.getValue();
+    }
+
+    @Nullable
+    @Override
+    public K firstKey() {
+        Entry<K, V> entry = firstEntry();
+        return entry == null ? null : entry.getKey();
+    }
+
+    @Nullable
+    @Override
+    public V last() {
+        Entry<K, V> entry = lastEntry();
+        return entry == null ? null : entry.getValue();
+    }
+
+    @Nullable
+    @Override
+    public K lastKey() {
+        Entry<K, V> entry = lastEntry();
+        return entry == null ? null : entry.getKey();
+    }
+
+    /**
+     * Removes the entry with the lowest key and returns its value.
+     * @return the value of the removed entry, or null if the collection is empty
+     */
+    @Nullable
+    public V pollFirst() {
+        Entry<K, V> entry = pollFirstEntry();
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * Removes the entry with the highest key and returns its value.
+     * @return the value of the removed entry, or null if the collection is empty
+     */
+    @Nullable
+    public V pollLast() {
+        Entry<K, V> entry = pollLastEntry();
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * Returns the values of the keys from <code>fromKey</code> (inclusive) to <code>toKey</code> (exclusive), in the
+     * order of the keys.
+     * @param fromKey low endpoint (inclusive) of the keys
+     * @param toKey high endpoint (exclusive) of the keys
+     * @return New list
+     * @see #subMap(Object, Object)
+     */
+    @NotNull
+    public CollectionList<V> range(@NotNull K fromKey, @NotNull K toKey) {
+        return new CollectionList<>(subMap(fromKey, toKey).values());
+    }
+
+    @Override
+    @NotNull
+    public <S> CollectionList<S> toList(@NotNull BiFunction<K, V, S> function) {
+        CollectionList<S> list = new CollectionList<>();
+        list.ensureCapacity(size());
+        this.forEach((k, v) -> list.add(function.apply(k, v)));
+        return list;
+    }
+
+    /**
+     * Creates a shallow copy of this collection as the {@link Collection}, as declared by {@link ICollection#clone()}.
+     * The copy is not sorted; use {@link #copy()} to keep the order and the comparator.
+     */
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @Override
+    public Collection<K, V> clone() {
+        return new Collection<>(this);
+    }
+
+    /**
+     * Creates a shallow copy of this collection, which keeps the comparator.
+     * @return Shallow copy of this collection
+     */
+    @SuppressWarnings("unchecked")
+    @NotNull
+    public SortedCollection<K, V> copy() {
+        return (SortedCollection<K, V>) super.clone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    @NotNull
+    public SortedCollection<K, V> deepClone() {
+        SortedCollection<K, V> collection = new SortedCollection<>(comparator());
+        this.forEach((k, v) -> collection.add((K) DeepCloneable.clone(k), (V) DeepCloneable.clone(v)));
+        return collection;
+    }
+}
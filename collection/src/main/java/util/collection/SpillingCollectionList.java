@@ -0,0 +1,481 @@
+package util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * This list keeps the elements in an {@link ArrayList} until the number of the elements or their estimated size
+ * exceeds the budget, and then moves the elements to a {@link FileBasedCollectionList} and keeps adding the elements
+ * there. The small lists never touch the disk, and the large lists never cause {@link OutOfMemoryError}.
+ * <p>After the list was spilled to the disk, the operations have the cost and the limitations of the
+ * {@link FileBasedCollectionList} (for example, {@link #add(int, Object)} is not supported). The list goes back to
+ * the memory only when it is {@link #clear() cleared}.
+ */
+@SuppressWarnings("unused")
+public class SpillingCollectionList<E> extends AbstractCollectionList<E> implements ICollectionList<E>, AutoCloseable {
+    private static final int MAX_ELEMENTS = 1_000_000;
+
+    private final int maxElements;
+    private final long maxBytes;
+    @Nullable
+    private final ToLongFunction<? super E> sizeEstimator;
+    @NotNull
+    private final FileBasedCollectionList.Builder<E> fileBuilder;
+
+    /**
+     * The elements, either an {@link ArrayList} or a {@link FileBasedCollectionList}.
+     */
+    private List<E> list = new ArrayList<>();
+
+    /**
+     * The estimated size of the elements in the memory, or 0 if the size estimator is not set.
+     */
+    private long estimatedBytes = 0;
+
+    private long spillTime = -1;
+    private long spillSize = -1;
+
+    /**
+     * Creates the list which spills to the disk when it has more than 1,000,000 elements.
+     */
+    public SpillingCollectionList() {
+        this(MAX_ELEMENTS);
+    }
+
+    /**
+     * Creates the list which spills to the disk when it has more than <code>maxElements</code> elements.
+     * @param maxElements the number of the elements kept in the memory
+     */
+    public SpillingCollectionList(int maxElements) {
+        this(new Builder<E>().setMaxElements(maxElements));
+    }
+
+    protected SpillingCollectionList(@NotNull Builder<E> builder) {
+        this.maxElements = builder.maxElements;
+        this.maxBytes = builder.maxBytes;
+        this.sizeEstimator = builder.sizeEstimator;
+        this.fileBuilder = builder.fileBuilder;
+    }
+
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * Returns the estimated size of the elements kept in the memory, or {@link Long#MAX_VALUE} if the size is not
+     * limited.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the estimated size of the elements in the memory, or 0 if the list was spilled to the disk or the size
+     * estimator is not set.
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns true if the elements were moved to a {@link FileBasedCollectionList}.
+     */
+    public boolean isSpilled() {
+        return list instanceof FileBasedCollectionList;
+    }
+
+    /**
+     * Returns the time when the list was spilled to the disk, in milliseconds since the epoch, or -1 if the list is in
+     * the memory.
+     */
+    public long getSpillTime() {
+        return spillTime;
+    }
+
+    /**
+     * Returns the number of the elements moved to the disk when the list was spilled, or -1 if the list is in the
+     * memory.
+     */
+    public long getSpillSize() {
+        return spillSize;
+    }
+
+    /**
+     * Creates a builder with the same settings as this list. The builder of the {@link FileBasedCollectionList} is
+     * copied without the path, so the new list doesn't spill to the file of this list.
+     */
+    @NotNull
+    public Builder<E> toBuilder() {
+        Builder<E> builder = new Builder<E>().setMaxElements(maxElements).setFileBuilder(fileBuilder.copy());
+        if (sizeEstimator != null) builder.setMaxBytes(maxBytes, sizeEstimator);
+        return builder;
+    }
+
+    /**
+     * Moves the elements to a {@link FileBasedCollectionList}, if the list is still in the memory.
+     */
+    public void spill() {
+        if (isSpilled()) return;
+        FileBasedCollectionList<E> file = fileBuilder.build();
+        file.addAll(list);
+        list = file;
+        estimatedBytes = 0;
+        spillTime = System.currentTimeMillis();
+        spillSize = file.getRealSize();
+    }
+
+    private void checkBudget() {
+        if (!isSpilled() && (list.size() > maxElements || estimatedBytes > maxBytes)) spill();
+    }
+
+    private long estimate(E e) {
+        return e == null || sizeEstimator == null || isSpilled() ? 0 : sizeEstimator.applyAsLong(e);
+    }
+
+    @Override
+    public boolean add(E e) {
+        estimatedBytes += estimate(e);
+        list.add(e);
+        checkBudget();
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        estimatedBytes += estimate(element);
+        list.add(index, element);
+        checkBudget();
+    }
+
+    @Override
+    public boolean addAll(@NotNull Collection<? extends E> c) {
+        if (isSpilled()) return list.addAll(c);
+        for (E e : c) {
+            add(e);
+        }
+        return !c.isEmpty();
+    }
+
+    @Override
+    public boolean addAll(int index, @NotNull Collection<? extends E> c) {
+        for (E e : c) {
+            add(index++, e);
+        }
+        return !c.isEmpty();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        E old = list.set(index, element);
+        estimatedBytes += estimate(element) - estimate(old);
+        checkBudget();
+        return old;
+    }
+
+    @Override
+    public E get(int index) {
+        return list.get(index);
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = list.remove(index);
+        estimatedBytes -= estimate(removed);
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(@NotNull Collection<?> c) {
+        return removeIf(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(@NotNull Collection<?> c) {
+        return removeIf(e -> !c.contains(e));
+    }
+
+    @Override
+    public boolean removeIf(@NotNull Predicate<? super E> filter) {
+        if (isSpilled()) return list.removeIf(filter);
+        return list.removeIf(e -> {
+            if (!filter.test(e)) return false;
+            estimatedBytes -= estimate(e);
+            return true;
+        });
+    }
+
+    /**
+     * Removes all elements. If the list was spilled to the disk, the file is deleted and the list goes back to the
+     * memory.
+     */
+    @Override
+    public void clear() {
+        close();
+        list = new ArrayList<>();
+        estimatedBytes = 0;
+        spillTime = -1;
+        spillSize = -1;
+    }
+
+    /**
+     * If the list was spilled to the disk, deletes the file and empties the list.
+     */
+    @Override
+    public void close() {
+        if (list instanceof FileBasedCollectionList) {
+            ((FileBasedCollectionList<E>) list).close();
+            list = new ArrayList<>();
+        }
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    /**
+     * Returns the number of the elements as long, which may exceed {@link Integer#MAX_VALUE} after the list was
+     * spilled to the disk.
+     */
+    public long getRealSize() {
+        return list instanceof FileBasedCollectionList ? ((FileBasedCollectionList<E>) list).getRealSize() : list.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return list.contains(o);
+    }
+
+    @Override
+    public boolean containsAll(@NotNull Collection<?> c) {
+        return list.containsAll(c);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return list.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return list.lastIndexOf(o);
+    }
+
+    @Override
+    public void sort(@Nullable Comparator<? super E> c) {
+        list.sort(c);
+    }
+
+    /**
+     * Sorts the list in the memory with {@link ICollectionList#parallelSorted(Parallelism, Comparator)}, or with
+     * {@link FileBasedCollectionList#parallelSorted(Parallelism, Comparator)} if the list was spilled to the disk.
+     */
+    @Override
+    public @NotNull SpillingCollectionList<E> parallelSorted(@NotNull Parallelism parallelism, @NotNull Comparator<? super E> comparator) {
+        if (list instanceof FileBasedCollectionList) {
+            ((FileBasedCollectionList<E>) list).parallelSorted(parallelism, comparator);
+        } else {
+            super.parallelSorted(parallelism, comparator);
+        }
+        return this;
+    }
+
+    /**
+     * Reduces the list in the memory with {@link ICollectionList#parallelReduce(Parallelism, Object, BiFunction, BinaryOperator)},
+     * or with {@link FileBasedCollectionList#parallelReduce(Parallelism, Object, BiFunction, BinaryOperator)} if the
+     * list was spilled to the disk.
+     */
+    @Override
+    public <U> U parallelReduce(@NotNull Parallelism parallelism, @Nullable U identity, @NotNull BiFunction<U, E, U> accumulator, @NotNull BinaryOperator<U> combiner) {
+        if (list instanceof FileBasedCollectionList) {
+            return ((FileBasedCollectionList<E>) list).parallelReduce(parallelism, identity, accumulator, combiner);
+        }
+        return super.parallelReduce(parallelism, identity, accumulator, combiner);
+    }
+
+    /**
+     * Returns the iterator of the current list. The iterator of the list spilled to the disk doesn't support
+     * {@link Iterator#remove()}.
+     */
+    @Override
+    public @NotNull Iterator<E> iterator() {
+        return isSpilled() ? list.iterator() : new Iterator<E>() {
+            private final Iterator<E> iterator = list.iterator();
+            private E last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return last = iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                estimatedBytes -= estimate(last);
+            }
+        };
+    }
+
+    @Override
+    public @NotNull ListIterator<E> listIterator() {
+        return listIterator(0);
+    }
+
+    /**
+     * Returns the live list iterator, which reads and writes through {@link #get(int)}, {@link #set(int, Object)} and
+     * the other index based methods of this list. If the list was spilled to the disk, the elements are read from the
+     * cached chunks, and the replaced elements are written once per chunk.
+     */
+    @Override
+    public @NotNull ListIterator<E> listIterator(int index) {
+        return new ListAdapter<>(this).listIterator(index);
+    }
+
+    @Override
+    public @NotNull Spliterator<E> spliterator() {
+        return list.spliterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        return list.toArray();
+    }
+
+    @Override
+    public @NotNull List<E> toList() {
+        return new ArrayList<>(list);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof List)) return false;
+        List<?> other = (List<?>) o;
+        if (other.size() != size()) return false;
+        Iterator<?> it = other.iterator();
+        for (E e : this) {
+            if (!it.hasNext() || !Objects.equals(e, it.next())) return false;
+        }
+        return !it.hasNext();
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (E e : this) hashCode = 31 * hashCode + Objects.hashCode(e);
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder("[");
+        for (E e : this) {
+            if (str.length() > 1) str.append(", ");
+            str.append(e == this ? "(this Collection)" : String.valueOf(e));
+        }
+        return str.append(']').toString();
+    }
+
+    @Override
+    public @NotNull SpillingCollectionList<E> newList() {
+        return toBuilder().build();
+    }
+
+    @Override
+    public @NotNull SpillingCollectionList<E> newList(@Nullable Collection<? extends E> list) {
+        SpillingCollectionList<E> newList = newList();
+        if (list != null) newList.addAll(list);
+        return newList;
+    }
+
+    /**
+     * Creates an empty list with the settings of this list which don't depend on the element type. The size
+     * estimator and the codec are not kept.
+     */
+    @Override
+    public @NotNull <E1> SpillingCollectionList<E1> createList() {
+        return new Builder<E1>().setMaxElements(maxElements).setFileBuilder(fileBuilder.newBuilder()).build();
+    }
+
+    public static final class Builder<E> {
+        private int maxElements = MAX_ELEMENTS;
+        private long maxBytes = Long.MAX_VALUE;
+        private ToLongFunction<? super E> sizeEstimator = null;
+        private FileBasedCollectionList.Builder<E> fileBuilder = FileBasedCollectionList.builder();
+
+        /**
+         * Sets the number of the elements kept in the memory. The default is 1,000,000.
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setMaxElements(int maxElements) {
+            if (maxElements < 0) throw new IllegalArgumentException("maxElements cannot be negative");
+            this.maxElements = maxElements;
+            return this;
+        }
+
+        /**
+         * Sets the estimated size of the elements kept in the memory. The estimator is called for each non-null
+         * element added or removed while the list is in the memory.
+         * @param maxBytes the estimated size in bytes
+         * @param sizeEstimator the function returning the estimated size of an element in bytes
+         */
+        @Contract("_, _ -> this")
+        @NotNull
+        public Builder<E> setMaxBytes(long maxBytes, @NotNull ToLongFunction<? super E> sizeEstimator) {
+            if (maxBytes < 0) throw new IllegalArgumentException("maxBytes cannot be negative");
+            this.maxBytes = maxBytes;
+            this.sizeEstimator = Objects.requireNonNull(sizeEstimator, "sizeEstimator cannot be null");
+            return this;
+        }
+
+        /**
+         * Sets the builder of the {@link FileBasedCollectionList} which the elements are moved to.
+         */
+        @Contract("_ -> this")
+        @NotNull
+        public Builder<E> setFileBuilder(@NotNull FileBasedCollectionList.Builder<E> fileBuilder) {
+            this.fileBuilder = Objects.requireNonNull(fileBuilder, "fileBuilder cannot be null");
+            return this;
+        }
+
+        @Contract("-> new")
+        @NotNull
+        public SpillingCollectionList<E> build() {
+            return new SpillingCollectionList<>(this);
+        }
+    }
+
+    @Contract("-> new")
+    @NotNull
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
+    }
+}
@@ -33,9 +33,11 @@ public class Ints {
      */
     @Contract(pure = true)
     public static int@NotNull [] toIntArray(@NotNull List<? extends Number> list) {
-        int[] bytes = new int[list.size()];
-        AtomicInteger i = new AtomicInteger();
-        list.forEach(number -> bytes[i.getAndIncrement()] = number.intValue());
-        return bytes;
+        int[] ints = new int[list.size()];
+        int i = 0;
+        for (Number number : list) {
+            ints[i++] = number.intValue();
+        }
+        return ints;
     }
 }
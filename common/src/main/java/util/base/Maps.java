@@ -14,16 +14,17 @@ public class Maps {
     @Nullable
     public static <K, V> Map.Entry<K, V> findEntry(@NotNull Map<K, V> map, @NotNull Predicate<? super K> predicate) {
         Validate.notNull(predicate, "predicate cannot be null");
-        return filterKeys(map, predicate::test).entrySet().stream().findFirst().orElse(null);
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            if (predicate.test(entry.getKey())) return entry;
+        }
+        return null;
     }
 
-    @SuppressWarnings("unchecked")
     @NotNull
     public static <K, V> Map<K, V> filterKeys(@NotNull Map<K, V> map, @NotNull  Function<K, Boolean> filter) {
         Map<K, V> newList = new HashMap<>();
-        Object[] values = map.values().toArray(new Object[0]);
-        foreachKeys(map, (k, i) -> {
-            if (filter.apply(k)) newList.put(k, (V) values[i]);
+        map.forEach((k, v) -> {
+            if (filter.apply(k)) newList.put(k, v);
         });
         return newList;
     }
@@ -39,8 +40,6 @@ public class Maps {
     @Nullable
     public static <K, V> V find(@NotNull Map<K, V> map, @NotNull K key) {
         Validate.notNull(key, "key cannot be null");
-        Map.Entry<K, V> entry = findEntry(map, key::equals);
-        if (entry != null) return entry.getValue();
-        return null;
+        return map.get(key);
     }
 }